@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link BinRpcMessage}. The expected bytes were recorded from the encoder before it was changed to
+ * ByteBuffers, which produced the same bytes for these values.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcMessageTest {
+    private static final String ENCODING = "ISO-8859-1";
+
+    // event("BidCos-RF", "ABC0001:1", "STATE", true, 42, -1.25, 0.1, 1970-01-12T13:46:40Z, ["a", 7],
+    // {LEVEL=0.5, ON=true})
+    private static final String EVENT = "42696e00000000aa000000056576656e740000000a"
+            + "0000000300000009426964436f732d5246" + "0000000300000009414243303030313a31"
+            + "00000003000000055354415445" + "0000000201" + "000000010000002a" + "00000004d800000000000001"
+            + "0000000433333333fffffffd" + "00000005000f4240"
+            + "000001000000000200000003000000016100000001" + "00000007"
+            + "0000010100000002000000054c4556454c000000042000000000000000" + "000000024f4e0000000201";
+
+    // the response to an event, an empty string
+    private static final String RESPONSE = "42696e01000000080000000300000000";
+
+    @Test
+    public void encodeRequestTest() {
+        BinRpcMessage message = new BinRpcMessage("event", ENCODING);
+        for (Object arg : createEventArgs()) {
+            message.addArg(arg);
+        }
+
+        assertThat(message.getArgCount(), is(10));
+        assertThat(toHex(message.createMessage()), is(EVENT));
+    }
+
+    @Test
+    public void encodeResponseTest() {
+        BinRpcMessage message = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        message.addArg("");
+
+        assertThat(toHex(message.createMessage()), is(RESPONSE));
+    }
+
+    @Test
+    public void decodeRequestTest() throws Exception {
+        BinRpcMessage message = new BinRpcMessage(fromHex(EVENT), true, ENCODING);
+
+        assertThat(message.getMethodName(), is("event"));
+        Object[] data = message.getResponseData();
+        assertThat(data.length, is(10));
+        assertThat(data[0], is("BidCos-RF"));
+        assertThat(data[1], is("ABC0001:1"));
+        assertThat(data[2], is("STATE"));
+        assertThat(data[3], is(Boolean.TRUE));
+        assertThat(data[4], is(42));
+        assertThat(data[5], is(-1.25));
+        assertThat(data[6], is(0.1));
+        assertThat(data[7], is(new Date(1000000L * 1000)));
+        assertThat(Arrays.asList((Object[]) data[8]), is(Arrays.<Object> asList("a", 7)));
+        assertThat(data[9], is(createEventArgs()[9]));
+    }
+
+    @Test
+    public void decodeStreamTest() throws Exception {
+        BinRpcMessage message = new BinRpcMessage(new ByteArrayInputStream(fromHex(RESPONSE)), false, ENCODING);
+
+        assertNull(message.getMethodName());
+        assertThat(Arrays.asList(message.getResponseData()), is(Arrays.<Object> asList("")));
+    }
+
+    @Test
+    public void decodeConsecutiveMessagesTest() throws Exception {
+        byte[] event = fromHex(EVENT);
+        byte[] response = fromHex(RESPONSE);
+        ByteBuffer buffer = ByteBuffer.allocate(event.length + response.length + 3);
+        buffer.put(event).put(response).put(fromHex("42696e")).flip();
+
+        assertThat(new BinRpcMessage(buffer, true, ENCODING).getMethodName(), is("event"));
+        assertThat(buffer.position(), is(event.length));
+        assertThat(new BinRpcMessage(buffer, false, ENCODING).getResponseData()[0], is(""));
+        assertThat(buffer.remaining(), is(3));
+    }
+
+    @Test(expected = EOFException.class)
+    public void decodeIncompleteMessageTest() throws Exception {
+        new BinRpcMessage(ByteBuffer.wrap(fromHex(EVENT), 0, 100), true, ENCODING);
+    }
+
+    @Test
+    public void stringLengthIsByteCountTest() throws Exception {
+        BinRpcMessage message = new BinRpcMessage("setValue", "UTF-8");
+        message.addArg("K\u00fcche");
+        byte[] encoded = message.createMessage();
+
+        assertThat(toHex(encoded),
+                is("42696e000000001e0000000873657456616c75650000000100000003000000064bc3bc636865"));
+        assertThat(new BinRpcMessage(encoded, true, "UTF-8").getResponseData()[0], is("K\u00fcche"));
+    }
+
+    @Test
+    public void dateRoundTripTest() throws Exception {
+        Date date = new Date(1500000000000L);
+        BinRpcMessage message = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        message.addArg(date);
+
+        assertThat(new BinRpcMessage(message.createMessage(), false, ENCODING).getResponseData()[0], is(date));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decodedMessageIsNotEncodableTest() throws Exception {
+        new BinRpcMessage(fromHex(EVENT), true, ENCODING).createMessage();
+    }
+
+    private Object[] createEventArgs() {
+        Map<String, Object> struct = new TreeMap<>();
+        struct.put("LEVEL", 0.5);
+        struct.put("ON", Boolean.TRUE);
+        return new Object[] { "BidCos-RF", "ABC0001:1", "STATE", Boolean.TRUE, 42, -1.25, 0.1,
+                new Date(1000000L * 1000), Arrays.asList("a", 7), struct };
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -47,7 +47,10 @@ public class HomematicConfig {
     private int binCallbackPort;
 
     private int socketMaxAlive = 900;
+    private int socketPoolSize = 4;
     private int timeout = 15;
+    private int maxMetadataRequests = 4;
+    private int eventCoalescingWindow = 0;
 
     private HmGatewayInfo gatewayInfo;
 
@@ -145,6 +148,20 @@ public class HomematicConfig {
         this.socketMaxAlive = socketMaxAlive;
     }
 
+    /**
+     * Returns the maximum number of pooled socket connections per interface of a Homematic gateway.
+     */
+    public int getSocketPoolSize() {
+        return socketPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of pooled socket connections per interface of a Homematic gateway.
+     */
+    public void setSocketPoolSize(int socketPoolSize) {
+        this.socketPoolSize = socketPoolSize;
+    }
+
     /**
      * Returns the timeout for the communication to a Homematic gateway in seconds.
      */
@@ -159,6 +176,34 @@ public class HomematicConfig {
         this.timeout = timeout;
     }
 
+    /**
+     * Returns the maximum number of parallel metadata requests per interface while loading the devices.
+     */
+    public int getMaxMetadataRequests() {
+        return maxMetadataRequests;
+    }
+
+    /**
+     * Sets the maximum number of parallel metadata requests per interface while loading the devices.
+     */
+    public void setMaxMetadataRequests(int maxMetadataRequests) {
+        this.maxMetadataRequests = maxMetadataRequests;
+    }
+
+    /**
+     * Returns the time window in milliseconds in which the events of a datapoint are coalesced, 0 = disabled.
+     */
+    public int getEventCoalescingWindow() {
+        return eventCoalescingWindow;
+    }
+
+    /**
+     * Sets the time window in milliseconds in which the events of a datapoint are coalesced, 0 = disabled.
+     */
+    public void setEventCoalescingWindow(int eventCoalescingWindow) {
+        this.eventCoalescingWindow = eventCoalescingWindow;
+    }
+
     /**
      * Returns the HmGatewayType.
      */
@@ -299,7 +344,9 @@ public class HomematicConfig {
                 .append("xmlCallbackPort", xmlCallbackPort).append("binCallbackPort", binCallbackPort)
                 .append("gatewayType", gatewayType).append("rfPort", getRfPort()).append("wiredPort", getWiredPort())
                 .append("hmIpPort", getHmIpPort()).append("cuxdPort", getCuxdPort()).append("groupPort", getGroupPort())
-                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive);
+                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive)
+                .append("socketPoolSize", socketPoolSize).append("maxMetadataRequests", maxMetadataRequests)
+                .append("eventCoalescingWindow", eventCoalescingWindow);
         return tsb.toString();
     }
 }
@@ -21,8 +21,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
@@ -33,6 +38,7 @@ import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.TransferMode;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
 import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
 import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
@@ -58,6 +64,7 @@ import org.openhab.binding.homematic.internal.communicator.virtual.VirtualDatapo
 import org.openhab.binding.homematic.internal.communicator.virtual.VirtualGateway;
 import org.openhab.binding.homematic.internal.misc.DelayedExecuter;
 import org.openhab.binding.homematic.internal.misc.DelayedExecuter.DelayedExecuterCallback;
+import org.openhab.binding.homematic.internal.misc.EventCoalescer;
 import org.openhab.binding.homematic.internal.misc.HomematicClientException;
 import org.openhab.binding.homematic.internal.misc.MiscUtils;
 import org.openhab.binding.homematic.internal.model.HmChannel;
@@ -83,6 +90,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String METADATA_POOL_NAME = "homematicMetadata";
 
     private Map<TransferMode, RpcClient<?>> rpcClients = new HashMap<TransferMode, RpcClient<?>>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -92,14 +100,17 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private HomematicGatewayAdapter gatewayAdapter;
     private DelayedExecuter sendDelayedExecutor = new DelayedExecuter();
     private DelayedExecuter receiveDelayedExecutor = new DelayedExecuter();
+    private EventCoalescer eventCoalescer;
     private Set<HmDatapointInfo> echoEvents = Collections.synchronizedSet(new HashSet<HmDatapointInfo>());
     private ScheduledFuture<?> connectionTrackerFuture;
     private ConnectionTrackerThread connectionTrackerThread;
     private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
-    private boolean cancelLoadAllMetadata;
+    private volatile boolean cancelLoadAllMetadata;
     private boolean initialized;
+    private ParamsetDescriptionCache paramsetDescriptionCache;
+    private Map<HmInterface, Semaphore> metadataRequestPermits = new HashMap<HmInterface, Semaphore>();
 
     static {
         // loads all virtual datapoints
@@ -126,6 +137,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.gatewayAdapter = gatewayAdapter;
+        this.paramsetDescriptionCache = new ParamsetDescriptionCache(id);
+        this.eventCoalescer = new EventCoalescer(ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME),
+                config.getEventCoalescingWindow());
     }
 
     @Override
@@ -171,6 +185,11 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             sb.setLength(sb.length() - 2);
         }
         logger.debug("Used Homematic transfer modes: {}", sb.toString());
+
+        for (HmInterface hmInterface : availableInterfaces.keySet()) {
+            metadataRequestPermits.put(hmInterface, new Semaphore(Math.max(1, config.getMaxMetadataRequests())));
+        }
+        paramsetDescriptionCache.load(gatewayInfo.getFirmware());
         startClients();
         startServers();
     }
@@ -181,11 +200,13 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         stopWatchdogs();
         sendDelayedExecutor.stop();
         receiveDelayedExecutor.stop();
+        eventCoalescer.stop();
         stopServers();
         stopClients();
         devices.clear();
         echoEvents.clear();
         availableInterfaces.clear();
+        metadataRequestPermits.clear();
         config.setGatewayInfo(null);
     }
 
@@ -342,49 +363,37 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
-        // loading datapoints for all channels
+        // loading datapoints for all devices in parallel, the requests per interface are limited by permits
+        CompletionService<HmDevice> completionService = new ExecutorCompletionService<HmDevice>(
+                ThreadPoolManager.getPool(METADATA_POOL_NAME));
+        for (final HmDevice device : deviceDescriptions) {
+            completionService.submit(new Callable<HmDevice>() {
+
+                @Override
+                public HmDevice call() {
+                    return loadDeviceMetadata(device);
+                }
+            });
+        }
+
         Set<String> loadedDevices = new HashSet<String>();
-        Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
-        for (HmDevice device : deviceDescriptions) {
-            if (!cancelLoadAllMetadata) {
-                try {
-                    logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(),
-                            device.getType());
-                    if (device.isGatewayExtras()) {
-                        loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
-                        loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
-                    } else {
-                        for (HmChannel channel : device.getChannels()) {
-                            logger.trace("  Loading channel {}", channel);
-                            // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
-                                HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
-                                cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
-                            } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
-                                if (cachedDatapoints != null) {
-                                    // clone all datapoints
-                                    cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
-                                } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    addChannelDatapoints(channel, HmParamsetType.VALUES);
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
-                                }
-                            }
-                        }
-                    }
+        try {
+            for (int i = 0; i < deviceDescriptions.size(); i++) {
+                HmDevice device = completionService.take().get();
+                if (device != null && !cancelLoadAllMetadata) {
                     prepareDevice(device);
                     loadedDevices.add(device.getAddress());
                     gatewayAdapter.onDeviceLoaded(device);
-                } catch (IOException ex) {
-                    logger.warn("Can't load device with address '{}' from gateway '{}': {}", device.getAddress(), id,
-                            ex.getMessage());
                 }
             }
+        } catch (InterruptedException ex) {
+            cancelLoadAllMetadata = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            cancelLoadAllMetadata = true;
+            throw new IOException(ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            paramsetDescriptionCache.save();
         }
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
@@ -392,12 +401,47 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         initialized = true;
     }
 
+    /**
+     * Loads the datapoint metadata of all channels of the device, returns null if the device could not be loaded.
+     */
+    private HmDevice loadDeviceMetadata(HmDevice device) {
+        if (cancelLoadAllMetadata) {
+            return null;
+        }
+        try {
+            logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(), device.getType());
+            if (device.isGatewayExtras()) {
+                loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
+                loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
+            } else {
+                for (HmChannel channel : device.getChannels()) {
+                    logger.trace("  Loading channel {}", channel);
+                    // speed up metadata generation a little bit for equal channels in the gateway devices
+                    if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
+                            || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
+                        HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
+                        cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
+                    } else {
+                        logger.trace("    Loading datapoints into channel {}", channel);
+                        addChannelDatapoints(channel, HmParamsetType.MASTER);
+                        addChannelDatapoints(channel, HmParamsetType.VALUES);
+                    }
+                }
+            }
+            return device;
+        } catch (IOException ex) {
+            logger.warn("Can't load device with address '{}' from gateway '{}': {}", device.getAddress(), id,
+                    ex.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Loads all datapoints from the gateway.
      */
     protected void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         try {
-            getRpcClient(channel.getDevice().getHmInterface()).addChannelDatapoints(channel, paramsetType);
+            loadParamsetDescription(channel, paramsetType);
         } catch (UnknownParameterSetException ex) {
             logger.info(
                     "Can not load metadata for device: {}, channel: {}, paramset: {}, maybe there are no channels available",
@@ -405,6 +449,32 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Adds the datapoints of the paramset description to the channel. The description is loaded from the cache or
+     * from the gateway, if it's not cached yet.
+     */
+    protected void loadParamsetDescription(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+        Object[] description = paramsetDescriptionCache.get(channel, paramsetType);
+        if (description == null) {
+            HmInterface hmInterface = channel.getDevice().getHmInterface();
+            Semaphore permits = metadataRequestPermits.get(hmInterface);
+            if (permits == null) {
+                description = getRpcClient(hmInterface).getParamsetDescription(channel, paramsetType);
+            } else {
+                permits.acquireUninterruptibly();
+                try {
+                    description = getRpcClient(hmInterface).getParamsetDescription(channel, paramsetType);
+                } finally {
+                    permits.release();
+                }
+            }
+            paramsetDescriptionCache.put(channel, paramsetType, description);
+        } else {
+            logger.trace("    Using cached {} paramset description for channel {}", paramsetType, channel);
+        }
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+    }
+
     /**
      * Loads all device descriptions from the gateway.
      */
@@ -603,21 +673,29 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 if (initialized) {
                     final HmDatapoint dp = getDatapoint(dpInfo);
                     HmDatapointConfig config = gatewayAdapter.getDatapointConfig(dp);
-                    receiveDelayedExecutor.start(dpInfo, config.getReceiveDelay(), () -> {
-                        dp.setValue(newValue);
+                    DelayedExecuterCallback callback = () -> receiveDelayedExecutor.start(dpInfo,
+                            config.getReceiveDelay(), () -> {
+                                dp.setValue(newValue);
 
-                        gatewayAdapter.onStateUpdated(dp);
-                        if (dp.isPressDatapoint() && MiscUtils.isTrueValue(dp.getValue())) {
-                            disableDatapoint(dp, DEFAULT_DISABLE_DELAY);
-                        }
-                        for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
-                            if (vdph.canHandleEvent(dp)) {
-                                vdph.handleEvent(this, dp);
-                                gatewayAdapter.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
-                            }
-                        }
+                                gatewayAdapter.onStateUpdated(dp);
+                                if (dp.isPressDatapoint() && MiscUtils.isTrueValue(dp.getValue())) {
+                                    disableDatapoint(dp, DEFAULT_DISABLE_DELAY);
+                                }
+                                for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
+                                    if (vdph.canHandleEvent(dp)) {
+                                        vdph.handleEvent(this, dp);
+                                        gatewayAdapter.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
+                                    }
+                                }
+
+                            });
 
-                    });
+                    // every trigger must be delivered, all other datapoints only need the latest value
+                    if (dp.isPressDatapoint() || dp.isTrigger() || dp.isActionType()) {
+                        callback.execute();
+                    } else {
+                        eventCoalescer.submit(dpInfo, callback);
+                    }
                 }
             } catch (HomematicClientException | IOException ex) {
                 // ignore
@@ -640,6 +718,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                             }
                             prepareDevice(device);
                             gatewayAdapter.onNewDevice(device);
+                            paramsetDescriptionCache.save();
                         }
                     }
                 } catch (Exception ex) {
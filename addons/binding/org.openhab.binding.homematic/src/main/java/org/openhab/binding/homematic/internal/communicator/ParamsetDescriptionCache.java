@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.openhab.binding.homematic.internal.misc.MiscUtils;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the paramset descriptions of the Homematic gateway by device type, firmware, channel number and paramset
+ * type. The descriptions are persisted in the userdata folder, so they don't have to be loaded from the gateway
+ * after a restart. The persisted descriptions are discarded if the firmware of the gateway changes.
+ *
+ * @author agent - Initial contribution
+ */
+public class ParamsetDescriptionCache {
+    private final Logger logger = LoggerFactory.getLogger(ParamsetDescriptionCache.class);
+    private static final String CACHE_FOLDER = "homematic";
+
+    private final File cacheFile;
+    private final Map<String, Object[]> descriptions = new ConcurrentHashMap<String, Object[]>();
+    private volatile boolean modified;
+    private String gatewayFirmware;
+
+    public ParamsetDescriptionCache(String gatewayId) {
+        File folder = new File(ConfigConstants.getUserDataFolder(), CACHE_FOLDER);
+        cacheFile = new File(folder,
+                String.format("paramsets-%s.cache", MiscUtils.validateCharacters(gatewayId, "Gateway", "_")));
+    }
+
+    /**
+     * Returns the cached paramset description for the channel or null, if there is none.
+     */
+    public Object[] get(HmChannel channel, HmParamsetType paramsetType) {
+        return descriptions.get(getKey(channel, paramsetType));
+    }
+
+    /**
+     * Adds the paramset description of the channel to the cache.
+     */
+    public void put(HmChannel channel, HmParamsetType paramsetType, Object[] description) {
+        descriptions.put(getKey(channel, paramsetType), description);
+        modified = true;
+    }
+
+    private String getKey(HmChannel channel, HmParamsetType paramsetType) {
+        return String.format("%s:%s:%s:%s", channel.getDevice().getType(), channel.getDevice().getFirmware(),
+                channel.getNumber(), paramsetType);
+    }
+
+    /**
+     * Loads the persisted paramset descriptions, if they are from a gateway with the given firmware.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void load(String gatewayFirmware) {
+        this.gatewayFirmware = gatewayFirmware;
+        descriptions.clear();
+        modified = false;
+        if (!cacheFile.exists()) {
+            return;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            Object cachedFirmware = ois.readObject();
+            if (!StringUtils.equals(gatewayFirmware, (String) cachedFirmware)) {
+                logger.debug("Gateway firmware changed from '{}' to '{}', discarding cached paramset descriptions",
+                        cachedFirmware, gatewayFirmware);
+                return;
+            }
+            descriptions.putAll((Map<String, Object[]>) ois.readObject());
+            logger.debug("Loaded {} cached paramset descriptions from '{}'", descriptions.size(), cacheFile);
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            logger.info("Can't load cached paramset descriptions from '{}', loading them from the gateway: {}",
+                    cacheFile, ex.getMessage());
+            descriptions.clear();
+        }
+    }
+
+    /**
+     * Persists the paramset descriptions, if there are new ones. The descriptions are written to a temporary file
+     * first, which then replaces the cache file, so a failed save never leaves a corrupt cache file behind.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        // cleared before the snapshot, so descriptions put while saving are persisted with the next save
+        modified = false;
+        Map<String, Object[]> snapshot = new HashMap<String, Object[]>(descriptions);
+
+        Path target = cacheFile.toPath();
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), cacheFile.getName(), ".tmp");
+            try (ObjectOutputStream oos = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                oos.writeObject(gatewayFirmware);
+                oos.writeObject(snapshot);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.debug("Saved {} paramset descriptions to '{}'", snapshot.size(), cacheFile);
+        } catch (IOException ex) {
+            modified = true;
+            logger.warn("Can't save paramset descriptions to '{}': {}", cacheFile, ex.getMessage());
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class BinRpcClient extends RpcClient<byte[]> {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
@@ -71,15 +71,23 @@ public class BinRpcClient extends RpcClient<byte[]> {
      */
     private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter) throws IOException {
         BinRpcMessage resp = null;
+        SocketInfo socketInfo = null;
         try {
-            Socket socket = socketHandler.getSocket(port);
+            socketInfo = socketHandler.getSocket(port);
+            Socket socket = socketInfo.getSocket();
             socket.getOutputStream().write(request.createMessage());
             resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            socketHandler.returnSocket(port, socketInfo);
+            socketInfo = null;
             return new RpcResponseParser(request).parse(resp.getResponseData());
         } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
             // throw immediately, don't retry the message
             throw rpcEx;
         } catch (IOException ioEx) {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+                socketInfo = null;
+            }
             if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
                 throw ioEx;
             } else {
@@ -90,6 +98,9 @@ public class BinRpcClient extends RpcClient<byte[]> {
                 return sendMessage(port, request, rpcRetryCounter);
             }
         } finally {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+            }
             if (logger.isTraceEnabled()) {
                 logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
             }
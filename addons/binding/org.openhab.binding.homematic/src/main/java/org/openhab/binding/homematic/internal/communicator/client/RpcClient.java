@@ -20,7 +20,6 @@ import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllScriptsParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllSystemVariablesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetDeviceDescriptionParser;
-import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetValueParser;
 import org.openhab.binding.homematic.internal.communicator.parser.HomegearLoadDeviceNamesParser;
@@ -159,13 +158,14 @@ public abstract class RpcClient<T> {
     }
 
     /**
-     * Loads all datapoint metadata into the given channel.
+     * Returns the datapoint metadata of the given channel and paramset, parse it with the
+     * GetParamsetDescriptionParser.
      */
-    public void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+    public Object[] getParamsetDescription(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         RpcRequest<T> request = createRpcRequest("getParamsetDescription");
         request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
         request.addArg(paramsetType.toString());
-        new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
+        return sendMessage(config.getRpcPort(channel), request);
     }
 
     /**
@@ -11,63 +11,147 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Socket pool with a limited number of sockets per port. A socket is borrowed exclusively for one request and
+ * returned afterwards, so requests to the same interface of the Homematic gateway can be sent concurrently.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private Map<Integer, SocketPool> poolsPerPort = new ConcurrentHashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    /**
+     * The sockets of one port. The permits limit the number of borrowed sockets.
+     */
+    private class SocketPool {
+        private final Semaphore permits;
+        private final Deque<SocketInfo> idleSockets = new ArrayDeque<SocketInfo>();
+        private int generation;
+
+        public SocketPool(int size) {
+            permits = new Semaphore(size, true);
+        }
+    }
+
     public SocketHandler(HomematicConfig config) {
         this.config = config;
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port, waits if all sockets of the port are in use and (re)creates the socket if
+     * required. The socket must be returned with {@link #returnSocket(int, SocketInfo)} or
+     * {@link #invalidateSocket(int, SocketInfo)}.
+     */
+    public SocketInfo getSocket(int port) throws IOException {
+        SocketPool pool = getPool(port);
+        long start = System.currentTimeMillis();
+        try {
+            if (!pool.permits.tryAcquire(config.getTimeout(), TimeUnit.SECONDS)) {
+                throw new IOException("Timeout waiting for a free socket on port " + port);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a free socket on port " + port);
+        }
+        long waitTime = System.currentTimeMillis() - start;
+        waitCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulateAndGet(waitTime, Math::max);
+        int currentInFlight = inFlight.incrementAndGet();
+        logger.trace("Borrowing socket for port {} after {} ms, {} requests in flight", port, waitTime,
+                currentInFlight);
+
+        try {
+            SocketInfo socketInfo = null;
+            synchronized (pool) {
+                while (socketInfo == null && !pool.idleSockets.isEmpty()) {
+                    socketInfo = pool.idleSockets.pollFirst();
+                    boolean isMaxAliveReached = System.currentTimeMillis()
+                            - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+                    if (isMaxAliveReached) {
+                        logger.debug("Max alive time reached for socket on port {}", port);
+                        closeSilent(socketInfo.getSocket());
+                        socketInfo = null;
+                    }
+                }
+                if (socketInfo == null) {
+                    socketInfo = new SocketInfo(null, pool.generation);
+                }
+            }
+
+            if (socketInfo.getSocket() == null) {
+                logger.trace("Creating new socket for port {}", port);
+                Socket socket = new Socket();
+                socket.setSoTimeout(config.getTimeout() * 1000);
+                socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
+                socketInfo = new SocketInfo(socket, socketInfo.getGeneration());
+            }
+            return socketInfo;
+        } catch (IOException | RuntimeException ex) {
+            releasePermit(pool);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the borrowed socket to the pool.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
-            logger.trace("Creating new socket for port {}", port);
-            Socket socket = new Socket();
-            socket.setSoTimeout(config.getTimeout() * 1000);
-            socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
+    public void returnSocket(int port, SocketInfo socketInfo) {
+        SocketPool pool = getPool(port);
+        synchronized (pool) {
+            if (socketInfo.getGeneration() == pool.generation) {
+                pool.idleSockets.addFirst(socketInfo);
+            } else {
+                closeSilent(socketInfo.getSocket());
             }
-            logger.trace("Returning socket for port {}", port);
         }
-        return socketInfo.getSocket();
+        releasePermit(pool);
+    }
+
+    /**
+     * Closes the borrowed socket, e.g. after a communication error.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing Socket on port {}", port);
+        closeSilent(socketInfo.getSocket());
+        releasePermit(getPool(port));
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Closes all idle sockets for the given port, borrowed sockets are closed when they are returned.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool != null) {
+            synchronized (pool) {
+                logger.trace("Closing sockets on port {}", port);
+                pool.generation++;
+                for (SocketInfo socketInfo : pool.idleSockets) {
+                    closeSilent(socketInfo.getSocket());
+                }
+                pool.idleSockets.clear();
+            }
         }
     }
 
@@ -75,18 +159,53 @@ public class SocketHandler {
      * Removes all cached sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
-            }
+        for (Integer port : poolsPerPort.keySet()) {
+            removeSocket(port);
+        }
+        if (waitCount.get() > 0) {
+            logger.debug("Socket pool statistics: {} requests, average wait time {} ms, max wait time {} ms",
+                    waitCount.get(), getAverageWaitTime(), getMaxWaitTime());
         }
     }
 
+    /**
+     * Returns the number of requests which currently use a socket.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds a request waited for a free socket.
+     */
+    public long getAverageWaitTime() {
+        long count = waitCount.get();
+        return count == 0 ? 0 : totalWaitTime.get() / count;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a request waited for a free socket.
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    private SocketPool getPool(int port) {
+        return poolsPerPort.computeIfAbsent(port, p -> new SocketPool(Math.max(1, config.getSocketPoolSize())));
+    }
+
+    private void releasePermit(SocketPool pool) {
+        inFlight.decrementAndGet();
+        pool.permits.release();
+    }
+
     /**
      * Silently closes the given socket.
      */
     private void closeSilent(Socket socket) {
+        if (socket == null) {
+            return;
+        }
         try {
             socket.close();
         } catch (IOException e) {
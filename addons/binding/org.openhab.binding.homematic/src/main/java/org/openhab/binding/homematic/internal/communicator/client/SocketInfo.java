@@ -18,9 +18,11 @@ import java.net.Socket;
 public class SocketInfo {
     private Socket socket;
     private long created;
+    private int generation;
 
-    public SocketInfo(Socket socket) {
+    public SocketInfo(Socket socket, int generation) {
         this.socket = socket;
+        this.generation = generation;
         this.created = System.currentTimeMillis();
     }
 
@@ -37,4 +39,11 @@ public class SocketInfo {
     public long getCreated() {
         return created;
     }
+
+    /**
+     * Returns the generation of the socket pool when the socket has been created.
+     */
+    public int getGeneration() {
+        return generation;
+    }
 }
@@ -8,6 +8,7 @@
  */
 package org.openhab.binding.homematic.internal.communicator.message;
 
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,37 +16,41 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Handles BIN-RPC request and response messages to communicate with a Homematic gateway.
+ * Messages are decoded directly from the received bytes and encoded into a growing ByteBuffer, without intermediate
+ * copies of the data. Decoded messages do not keep the received bytes, they can't be changed or encoded again.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private final Logger logger = LoggerFactory.getLogger(BinRpcMessage.class);
 
+    private static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
     public enum TYPE {
         REQUEST,
         RESPONSE;
     }
 
     private Object[] messageData;
-    private byte binRpcData[];
-    private int offset;
+    private ByteBuffer binRpcData;
+    private int argsPosition;
 
     private String methodName;
     private TYPE type;
@@ -71,76 +76,100 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      */
     public BinRpcMessage(InputStream is, boolean methodHeader, String encoding) throws IOException {
         this.encoding = encoding;
-        byte sig[] = new byte[8];
-        int length = is.read(sig, 0, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading signature");
-        }
-        validateBinXSignature(sig);
-        length = is.read(sig, 4, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading message length");
+        DataInputStream dis = new DataInputStream(is);
+        byte sig[] = new byte[HEADER_LENGTH];
+        dis.readFully(sig, 0, 4);
+        validateBinXSignature(sig[0], sig[1], sig[2]);
+        int datasize = dis.readInt();
+        if (datasize < 0) {
+            throw new IOException("Invalid message length " + datasize);
         }
-        int datasize = (new BigInteger(ArrayUtils.subarray(sig, 4, 8))).intValue();
-        byte[] message = ArrayUtils.addAll(sig, IOUtils.toByteArray(is, datasize));
-        decodeMessage(message, methodHeader);
-    }
 
-    private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
-        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
-            throw new UnsupportedEncodingException("No BinX signature");
-        }
+        // read the data behind the header into the same array
+        byte[] message = Arrays.copyOf(sig, HEADER_LENGTH + datasize);
+        ByteBuffer.wrap(message).putInt(4, datasize);
+        dis.readFully(message, HEADER_LENGTH, datasize);
+        decodeMessage(ByteBuffer.wrap(message), methodHeader);
     }
 
     /**
      * Decodes a BIN-RPC message from the given byte array.
      */
     public BinRpcMessage(byte[] message, boolean methodHeader, String encoding) throws IOException, ParseException {
+        this(ByteBuffer.wrap(message), methodHeader, encoding);
+    }
+
+    /**
+     * Decodes one BIN-RPC message from the given ByteBuffer, beginning at the current position. The position of the
+     * buffer is moved behind the message, the buffer is not referenced afterwards and may be reused.
+     */
+    public BinRpcMessage(ByteBuffer buffer, boolean methodHeader, String encoding) throws IOException {
         this.encoding = encoding;
-        if (message.length < 8) {
-            throw new EOFException("Only " + message.length + " bytes received");
+        if (buffer.remaining() < HEADER_LENGTH) {
+            throw new EOFException("Only " + buffer.remaining() + " bytes received");
+        }
+        int start = buffer.position();
+        validateBinXSignature(buffer.get(start), buffer.get(start + 1), buffer.get(start + 2));
+        int end = start + HEADER_LENGTH + buffer.getInt(start + 4);
+        if (end < start + HEADER_LENGTH || end > buffer.limit()) {
+            throw new EOFException("Incomplete message, " + buffer.remaining() + " bytes received");
         }
-        validateBinXSignature(message);
+
+        ByteBuffer message = buffer.duplicate();
+        message.limit(end);
+        buffer.position(end);
         decodeMessage(message, methodHeader);
     }
 
-    private void decodeMessage(byte[] message, boolean methodHeader) throws IOException {
-        binRpcData = message;
-
-        offset = 8;
+    private void validateBinXSignature(byte b0, byte b1, byte b2) throws UnsupportedEncodingException {
+        if (b0 != 'B' || b1 != 'i' || b2 != 'n') {
+            throw new UnsupportedEncodingException("No BinX signature");
+        }
+    }
 
-        if (methodHeader) {
-            methodName = readString();
-            readInt();
+    private void decodeMessage(ByteBuffer message, boolean methodHeader) throws IOException {
+        message.position(message.position() + HEADER_LENGTH);
+        try {
+            if (methodHeader) {
+                methodName = readString(message);
+                message.getInt();
+            }
+            messageData = readRpcValues(message);
+        } catch (BufferUnderflowException ex) {
+            throw new EOFException("Unexpected end of message");
         }
-        generateResponseData();
     }
 
     public void setType(TYPE type) {
-        binRpcData[3] = type == TYPE.RESPONSE ? (byte) 1 : (byte) 0;
+        checkEncodable();
+        binRpcData.put(3, type == TYPE.RESPONSE ? (byte) 1 : (byte) 0);
+    }
+
+    private void checkEncodable() {
+        if (binRpcData == null) {
+            throw new IllegalStateException("A decoded BIN-RPC message can't be encoded");
+        }
     }
 
-    private void generateResponseData() throws IOException {
-        offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+    private Object[] readRpcValues(ByteBuffer message) throws IOException {
         List<Object> values = new ArrayList<Object>();
-        while (offset < binRpcData.length) {
-            values.add(readRpcValue());
+        while (message.hasRemaining()) {
+            values.add(readRpcValue(message));
         }
-        messageData = values.toArray();
-        values.clear();
+        return values.toArray();
     }
 
     private void createHeader() {
-        binRpcData = new byte[256];
-        addString("Bin ");
+        binRpcData = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        binRpcData.put((byte) 'B').put((byte) 'i').put((byte) 'n').put((byte) 0);
         setType(type);
-        addInt(0); // placeholder content length
+        binRpcData.putInt(0); // placeholder content length
         if (methodName != null) {
-            addInt(methodName.length());
             addString(methodName);
-            addInt(0); // placeholder arguments
+            argsPosition = binRpcData.position();
+            binRpcData.putInt(0); // placeholder arguments
         }
-        setInt(4, offset - 8);
+        binRpcData.putInt(4, binRpcData.position() - HEADER_LENGTH);
     }
 
     /**
@@ -148,11 +177,12 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      */
     @Override
     public void addArg(Object argument) {
+        checkEncodable();
         addObject(argument);
-        setInt(4, offset - 8);
+        binRpcData.putInt(4, binRpcData.position() - HEADER_LENGTH);
 
         if (methodName != null) {
-            setInt(12 + methodName.length(), ++args);
+            binRpcData.putInt(argsPosition, ++args);
         }
     }
 
@@ -167,14 +197,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     @Override
     public byte[] createMessage() {
-        trimBinRpcData();
-        return binRpcData;
-    }
-
-    private void trimBinRpcData() {
-        byte[] trimmed = new byte[offset];
-        System.arraycopy(binRpcData, 0, trimmed, 0, offset);
-        binRpcData = trimmed;
+        checkEncodable();
+        return Arrays.copyOf(binRpcData.array(), binRpcData.position());
     }
 
     @Override
@@ -183,106 +207,125 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     // read rpc values
-    private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(binRpcData, offset, bi, 0, 4);
-        offset += 4;
-        return (new BigInteger(bi)).intValue();
-    }
-
-    private String readString() throws UnsupportedEncodingException {
-        int len = readInt();
-        offset += len;
-        return new String(binRpcData, offset - len, len, encoding);
+    private String readString(ByteBuffer message) throws UnsupportedEncodingException {
+        int len = message.getInt();
+        if (len < 0 || len > message.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String string;
+        if (message.hasArray()) {
+            string = new String(message.array(), message.arrayOffset() + message.position(), len, encoding);
+            message.position(message.position() + len);
+        } else {
+            byte[] bytes = new byte[len];
+            message.get(bytes);
+            string = new String(bytes, encoding);
+        }
+        return string;
     }
 
-    private Object readRpcValue() throws IOException {
-        int type = readInt();
+    private Object readRpcValue(ByteBuffer message) throws IOException {
+        int type = message.getInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(message.getInt());
             case 2:
-                return binRpcData[offset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
+                return message.get() != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
-                return readString();
+                return readString(message);
             case 4:
-                int mantissa = readInt();
-                int exponent = readInt();
-                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
-                return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+                return readDouble(message);
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(message.getInt() * 1000L);
             case 0x100:
                 // Array
-                int numElements = readInt();
-                Collection<Object> array = new ArrayList<Object>();
-                while (numElements-- > 0) {
-                    array.add(readRpcValue());
+                int numElements = message.getInt();
+                if (numElements > message.remaining() / 4) {
+                    throw new BufferUnderflowException();
                 }
-                return array.toArray();
+                Object[] array = new Object[Math.max(0, numElements)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readRpcValue(message);
+                }
+                return array;
             case 0x101:
                 // Struct
-                numElements = readInt();
+                numElements = message.getInt();
                 Map<String, Object> struct = new TreeMap<String, Object>();
                 while (numElements-- > 0) {
-                    String name = readString();
-                    struct.put(name, readRpcValue());
+                    String name = readString(message);
+                    struct.put(name, readRpcValue(message));
                 }
                 return struct;
 
             default:
-                for (int i = 0; i < binRpcData.length; i++) {
-                    logger.info("{} {}", Integer.toHexString(binRpcData[i]), (char) binRpcData[i]);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Unknown data type {} in BIN-RPC message: {}", type, toHexString(message));
                 }
                 throw new IOException("Unknown data type " + type);
         }
     }
 
-    private void setInt(int position, int value) {
-        int temp = offset;
-        offset = position;
-        addInt(value);
-        offset = temp;
+    /**
+     * Decodes a double value which is encoded as mantissa and exponent. Values with up to six binary digits after
+     * the decimal point are exact after the scaling, only all other values are rounded to six decimal digits.
+     */
+    private Double readDouble(ByteBuffer message) {
+        int mantissa = message.getInt();
+        int exponent = message.getInt();
+        double value = Math.scalb((double) mantissa, exponent - 30);
+        double scaled = value * 64;
+        if (scaled == Math.rint(scaled) && Math.abs(scaled) < (1L << 52)) {
+            return value;
+        }
+        BigDecimal bd = new BigDecimal(value);
+        return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
     }
 
-    private void addByte(byte b) {
-        if (offset == binRpcData.length) {
-            byte newdata[] = new byte[binRpcData.length * 2];
-            System.arraycopy(binRpcData, 0, newdata, 0, binRpcData.length);
-            binRpcData = newdata;
+    private static String toHexString(ByteBuffer message) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < message.limit(); i++) {
+            sb.append(String.format("%02x", message.get(i)));
         }
-        binRpcData[offset++] = b;
+        return sb.toString();
+    }
+
+    private void ensureCapacity(int length) {
+        if (binRpcData.remaining() < length) {
+            int capacity = Math.max(binRpcData.capacity() * 2, binRpcData.position() + length);
+            ByteBuffer newData = ByteBuffer.allocate(capacity);
+            binRpcData.flip();
+            newData.put(binRpcData);
+            binRpcData = newData;
+        }
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
+        binRpcData.put(b);
     }
 
     private void addInt(int value) {
-        addByte((byte) (value >> 24));
-        addByte((byte) (value >> 16));
-        addByte((byte) (value >> 8));
-        addByte((byte) (value));
+        ensureCapacity(4);
+        binRpcData.putInt(value);
     }
 
     private void addDouble(double value) {
-        double tmp = Math.abs(value);
         int exp = 0;
-        if (tmp != 0 && tmp < 0.5) {
-            while (tmp < 0.5) {
-                tmp *= 2;
-                exp--;
-            }
-        } else {
-            while (tmp >= 1) {
-                tmp /= 2;
-                exp++;
-            }
+        int mantissa = 0;
+        if (value != 0) {
+            // normalize the absolute value to [0.5, 1)
+            exp = Math.getExponent(value) + 1;
+            mantissa = (int) Math.round(Math.scalb(value, -exp) * 0x40000000);
         }
-        if (value < 0) {
-            tmp *= -1;
-        }
-        int mantissa = (int) Math.round(tmp * 0x40000000);
-        addInt(mantissa);
-        addInt(exp);
+        ensureCapacity(8);
+        binRpcData.putInt(mantissa);
+        binRpcData.putInt(exp);
     }
 
+    /**
+     * Adds the length and the bytes of the string.
+     */
     private void addString(String string) {
         byte sd[];
         try {
@@ -290,50 +333,46 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         } catch (UnsupportedEncodingException use) {
             sd = string.getBytes();
         }
-        for (byte ch : sd) {
-            addByte(ch);
-        }
-    }
-
-    private void addList(Collection<?> collection) {
-        for (Object object : collection) {
-            addObject(object);
-        }
+        ensureCapacity(4 + sd.length);
+        binRpcData.putInt(sd.length);
+        binRpcData.put(sd);
     }
 
     private void addObject(Object object) {
-        if (object.getClass() == String.class) {
+        if (object instanceof String) {
             addInt(3);
-            String string = (String) object;
-            addInt(string.length());
-            addString(string);
-        } else if (object.getClass() == Boolean.class) {
-            addInt(2);
-            addByte(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
-        } else if (object.getClass() == Integer.class) {
-            addInt(1);
-            addInt(((Integer) object).intValue());
-        } else if (object.getClass() == Double.class) {
+            addString((String) object);
+        } else if (object instanceof Boolean) {
+            ensureCapacity(5);
+            binRpcData.putInt(2);
+            binRpcData.put(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
+        } else if (object instanceof Integer) {
+            ensureCapacity(8);
+            binRpcData.putInt(1);
+            binRpcData.putInt(((Integer) object).intValue());
+        } else if (object instanceof Double) {
             addInt(4);
             addDouble(((Double) object).doubleValue());
-        } else if (object.getClass() == Float.class) {
+        } else if (object instanceof Float) {
             addInt(4);
             BigDecimal bd = new BigDecimal((Float) object);
             addDouble(bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue());
-        } else if (object.getClass() == BigDecimal.class) {
+        } else if (object instanceof BigDecimal) {
             addInt(4);
             addDouble(((BigDecimal) object).setScale(6, RoundingMode.HALF_DOWN).doubleValue());
-        } else if (object.getClass() == BigInteger.class) {
+        } else if (object instanceof BigInteger) {
             addInt(4);
             addDouble(((BigInteger) object).doubleValue());
-        } else if (object.getClass() == Date.class) {
+        } else if (object instanceof Date) {
             addInt(5);
-            addInt((int) ((Date) object).getTime() / 1000);
+            addInt((int) (((Date) object).getTime() / 1000));
         } else if (object instanceof List<?>) {
             Collection<?> list = (Collection<?>) object;
             addInt(0x100);
             addInt(list.size());
-            addList(list);
+            for (Object element : list) {
+                addObject(element);
+            }
         } else if (object instanceof Map<?, ?>) {
             Map<?, ?> map = (Map<?, ?>) object;
             addInt(0x101);
@@ -341,24 +380,25 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             for (Map.Entry<?, ?> entry : map.entrySet()) {
                 String key = (String) entry.getKey();
                 if (key != null) {
-                    addInt(key.length());
                     addString(key);
-                    addList(Collections.singleton(entry.getValue()));
+                    addObject(entry.getValue());
                 }
             }
         }
     }
 
-    public String toBinString() {
-        return Arrays.toString(createMessage());
-    }
-
     @Override
     public String toString() {
         try {
-            trimBinRpcData();
-            generateResponseData();
-            return RpcUtils.dumpRpcMessage(methodName, messageData);
+            Object[] data = messageData;
+            if (data == null) {
+                // a message that is created here, decode the arguments behind the method header
+                ByteBuffer message = binRpcData.duplicate();
+                message.flip();
+                message.position(methodName != null ? argsPosition + 4 : HEADER_LENGTH);
+                data = readRpcValues(message);
+            }
+            return RpcUtils.dumpRpcMessage(methodName, data);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
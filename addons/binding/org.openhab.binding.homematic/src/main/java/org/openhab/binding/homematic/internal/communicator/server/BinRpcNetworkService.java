@@ -10,30 +10,46 @@ package org.openhab.binding.homematic.internal.communicator.server;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Waits for a message from the Homematic gateway and starts the RpcCallbackHandler to handle the message.
+ * Waits for messages from the Homematic gateway and hands them over to the BinRpcResponseHandler of the connection.
+ * Connections are kept alive, so that the gateway can send many messages over one connection. All connections are
+ * read by one thread with a selector, the method calls are handled by a fixed worker pool.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcNetworkService implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcNetworkService.class);
+
     private static final byte BIN_EMPTY_STRING[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
     private static final byte BIN_EMPTY_ARRAY[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 1, 0, 0, 0, 0, 0 };
     private static final byte BIN_EMPTY_EVENT_LIST[] = { 'B', 'i', 'n', 1, 0, 0, 0, 21, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0,
             3, 0, 0, 0, 5, 'e', 'v', 'e', 'n', 't' };
 
     private static final String RPC_POOL_NAME = "homematicRpc";
-    private ServerSocket serverSocket;
-    private boolean accept = true;
+    private static final long CONNECTION_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private volatile boolean accept = true;
     private HomematicConfig config;
     private RpcResponseHandler<byte[]> rpcResponseHandler;
+    private ExecutorService workerPool;
 
     /**
      * Creates the socket for listening to events from the Homematic gateway.
@@ -41,9 +57,13 @@ public class BinRpcNetworkService implements Runnable {
     public BinRpcNetworkService(RpcEventListener listener, HomematicConfig config) throws IOException {
         this.config = config;
 
-        serverSocket = new ServerSocket();
-        serverSocket.setReuseAddress(true);
-        serverSocket.bind(new InetSocketAddress(config.getBinCallbackPort()));
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(config.getBinCallbackPort()));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        workerPool = ThreadPoolManager.getPool(RPC_POOL_NAME);
 
         this.rpcResponseHandler = new RpcResponseHandler<byte[]>(listener) {
 
@@ -70,28 +90,85 @@ public class BinRpcNetworkService implements Runnable {
     }
 
     /**
-     * Listening for events and starts the callbackHandler if a event received.
+     * Listening for events and hands them over to the BinRpcResponseHandler of the connection.
      */
     @Override
     public void run() {
+        long lastIdleCheck = System.currentTimeMillis();
         while (accept) {
             try {
-                Socket cs = serverSocket.accept();
-                BinRpcResponseHandler rpcHandler = new BinRpcResponseHandler(cs, rpcResponseHandler, config);
-                ThreadPoolManager.getPool(RPC_POOL_NAME).execute(rpcHandler);
-            } catch (IOException ex) {
+                selector.select(CONNECTION_IDLE_TIMEOUT);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptConnection();
+                    } else {
+                        BinRpcResponseHandler rpcHandler = (BinRpcResponseHandler) key.attachment();
+                        if (key.isReadable()) {
+                            rpcHandler.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            rpcHandler.write();
+                        }
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastIdleCheck > CONNECTION_IDLE_TIMEOUT) {
+                    lastIdleCheck = now;
+                    closeIdleConnections(now);
+                }
+            } catch (IOException | ClosedSelectorException ex) {
                 // ignore
             }
         }
     }
 
+    private void acceptConnection() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new BinRpcResponseHandler(key, rpcResponseHandler, workerPool, config));
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof BinRpcResponseHandler
+                    && ((BinRpcResponseHandler) attachment).isIdleSince(now - CONNECTION_IDLE_TIMEOUT)) {
+                logger.trace("Closing idle BIN-RPC connection");
+                ((BinRpcResponseHandler) attachment).close();
+            }
+        }
+    }
+
     /**
      * Stops the listening.
      */
     public void shutdown() {
         accept = false;
         try {
-            serverSocket.close();
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        } catch (IOException | ClosedSelectorException ioe) {
+            // ignore
+        }
+        try {
+            selector.close();
+        } catch (IOException ioe) {
+            // ignore
+        }
+        try {
+            serverChannel.close();
         } catch (IOException ioe) {
             // ignore
         }
@@ -8,9 +8,14 @@
  */
 package org.openhab.binding.homematic.internal.communicator.server;
 
-import java.io.EOFException;
 import java.io.IOException;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
@@ -18,46 +23,205 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Reads a BIN-RPC message from the socket and handles the method call.
+ * Handles one persistent BIN-RPC connection from the Homematic gateway. The selector thread of the
+ * BinRpcNetworkService reads the data and decodes the messages directly from the reused read buffer, the method
+ * calls are handled in the worker pool one after another in the order they were received.
  *
  * @author Gerhard Riegler - Initial contribution
  */
-public class BinRpcResponseHandler implements Runnable {
+public class BinRpcResponseHandler {
     private final Logger logger = LoggerFactory.getLogger(BinRpcResponseHandler.class);
 
-    private Socket socket;
+    private static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private SelectionKey key;
+    private SocketChannel channel;
     private RpcResponseHandler<byte[]> rpcResponseHandler;
+    private ExecutorService workerPool;
     private HomematicConfig config;
 
-    public BinRpcResponseHandler(Socket socket, RpcResponseHandler<byte[]> rpcResponseHandler, HomematicConfig config) {
-        this.socket = socket;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    // guarded by "this"
+    private final Queue<BinRpcMessage> messages = new ArrayDeque<>();
+    private final Queue<ByteBuffer> pendingWrites = new ArrayDeque<>();
+    private boolean processing;
+
+    public BinRpcResponseHandler(SelectionKey key, RpcResponseHandler<byte[]> rpcResponseHandler,
+            ExecutorService workerPool, HomematicConfig config) {
+        this.key = key;
+        this.channel = (SocketChannel) key.channel();
         this.rpcResponseHandler = rpcResponseHandler;
+        this.workerPool = workerPool;
         this.config = config;
     }
 
     /**
-     * Reads the event from the Homematic gateway and handles the method call.
+     * Reads the available data from the connection and dispatches every complete message. Called from the selector
+     * thread.
      */
-    @Override
-    public void run() {
+    public void read() {
         try {
-            BinRpcMessage message = new BinRpcMessage(socket.getInputStream(), true, config.getEncoding());
-            logger.trace("Event BinRpcMessage: {}", message);
-            byte[] returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(),
-                    message.getResponseData());
-            if (returnValue != null) {
-                socket.getOutputStream().write(returnValue);
-            }
-        } catch (EOFException eof) {
-            // ignore
-        } catch (Exception e) {
-            logger.error("{}", e.getMessage(), e);
-        } finally {
+            int read;
+            while ((read = channel.read(readBuffer)) > 0) {
+                lastActivity = System.currentTimeMillis();
+                extractMessages();
+            }
+            if (read < 0) {
+                // the gateway closed the connection
+                close();
+            }
+        } catch (IOException ex) {
+            logger.debug("Error reading BIN-RPC connection: {}", ex.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Decodes the received messages. A message starts with the BinX signature followed by the length of the data.
+     */
+    private void extractMessages() throws IOException {
+        readBuffer.flip();
+        while (readBuffer.remaining() >= HEADER_LENGTH) {
+            int start = readBuffer.position();
+            if (readBuffer.get(start) != 'B' || readBuffer.get(start + 1) != 'i' || readBuffer.get(start + 2) != 'n') {
+                throw new IOException("No BinX signature");
+            }
+            int datasize = readBuffer.getInt(start + 4);
+            if (datasize < 0) {
+                throw new IOException("Invalid BIN-RPC message length " + datasize);
+            }
+            int messageLength = HEADER_LENGTH + datasize;
+            if (readBuffer.remaining() < messageLength) {
+                break;
+            }
             try {
-                socket.close();
+                enqueueMessage(new BinRpcMessage(readBuffer, true, config.getEncoding()));
             } catch (IOException ex) {
-                // ignore
+                logger.error("Error decoding BIN-RPC message: {}", ex.getMessage(), ex);
+                readBuffer.position(start + messageLength);
             }
         }
+        readBuffer.compact();
+
+        if (!readBuffer.hasRemaining()) {
+            // the current message is larger than the buffer
+            int required = readBuffer.capacity() * 2;
+            if (readBuffer.position() >= HEADER_LENGTH) {
+                required = Math.max(required, HEADER_LENGTH + readBuffer.getInt(4));
+            }
+            ByteBuffer newBuffer = ByteBuffer.allocate(required);
+            readBuffer.flip();
+            newBuffer.put(readBuffer);
+            readBuffer = newBuffer;
+        }
+    }
+
+    private void enqueueMessage(BinRpcMessage message) {
+        synchronized (this) {
+            messages.add(message);
+            if (processing) {
+                return;
+            }
+            processing = true;
+        }
+        try {
+            workerPool.execute(this::processMessages);
+        } catch (RejectedExecutionException ex) {
+            logger.debug("BIN-RPC message rejected: {}", ex.getMessage());
+            synchronized (this) {
+                messages.clear();
+                processing = false;
+            }
+        }
+    }
+
+    /**
+     * Handles the method calls of the received messages in the worker pool.
+     */
+    private void processMessages() {
+        while (true) {
+            BinRpcMessage message;
+            synchronized (this) {
+                message = messages.poll();
+                if (message == null) {
+                    processing = false;
+                    return;
+                }
+            }
+            try {
+                logger.trace("Event BinRpcMessage: {}", message);
+                byte[] returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(),
+                        message.getResponseData());
+                if (returnValue != null) {
+                    send(returnValue);
+                }
+            } catch (Exception e) {
+                logger.error("{}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the response directly if possible, the remaining data is written by the selector thread.
+     */
+    private void send(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        synchronized (this) {
+            try {
+                if (pendingWrites.isEmpty()) {
+                    channel.write(buffer);
+                }
+                if (buffer.hasRemaining()) {
+                    pendingWrites.add(buffer);
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    key.selector().wakeup();
+                }
+            } catch (Exception ex) {
+                logger.debug("Error writing BIN-RPC response: {}", ex.getMessage());
+                close();
+            }
+        }
+    }
+
+    /**
+     * Writes the pending responses. Called from the selector thread.
+     */
+    public synchronized void write() {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = pendingWrites.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                pendingWrites.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (Exception ex) {
+            logger.debug("Error writing BIN-RPC response: {}", ex.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Returns true if there was no activity on the connection since the given time.
+     */
+    public synchronized boolean isIdleSince(long time) {
+        return lastActivity < time && !processing && pendingWrites.isEmpty();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    public void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // ignore
+        }
     }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.misc;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.homematic.internal.misc.DelayedExecuter.DelayedExecuterCallback;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the events of a datapoint within a time window. The first event of a datapoint opens the window, all
+ * further events within the window replace the pending one and only the latest event is executed when the window
+ * closes.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventCoalescer {
+    private final Logger logger = LoggerFactory.getLogger(EventCoalescer.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final long window;
+    private Map<HmDatapointInfo, DelayedExecuterCallback> pendingEvents;
+    private long coalescedEvents;
+
+    /**
+     * Creates a new EventCoalescer with the given window in milliseconds.
+     */
+    public EventCoalescer(ScheduledExecutorService scheduler, long window) {
+        this.scheduler = scheduler;
+        this.window = window;
+        this.pendingEvents = new HashMap<HmDatapointInfo, DelayedExecuterCallback>();
+    }
+
+    /**
+     * Executes the callback at the end of the window of the datapoint, unless it's replaced by a newer event.
+     */
+    public void submit(final HmDatapointInfo dpInfo, final DelayedExecuterCallback callback)
+            throws IOException, HomematicClientException {
+        if (window <= 0) {
+            callback.execute();
+            return;
+        }
+        synchronized (this) {
+            if (pendingEvents.put(dpInfo, callback) != null) {
+                coalescedEvents++;
+                logger.trace("Coalescing event for '{}'", dpInfo);
+                return;
+            }
+        }
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                DelayedExecuterCallback latestCallback;
+                synchronized (EventCoalescer.this) {
+                    latestCallback = pendingEvents.remove(dpInfo);
+                }
+                if (latestCallback != null) {
+                    try {
+                        latestCallback.execute();
+                    } catch (Exception ex) {
+                        logger.error("{}", ex.getMessage(), ex);
+                    }
+                }
+            }
+        }, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Discards all pending events.
+     */
+    public synchronized void stop() {
+        if (coalescedEvents > 0) {
+            logger.debug("Coalesced {} events", coalescedEvents);
+        }
+        pendingEvents.clear();
+    }
+}
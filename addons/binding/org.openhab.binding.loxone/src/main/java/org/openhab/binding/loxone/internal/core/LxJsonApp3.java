@@ -8,23 +8,81 @@
  */
 package org.openhab.binding.loxone.internal.core;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Map;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * A structure of JSON file http://miniserver/data/LoxAPP3.json used for parsing it with Gson library.
+ * <p>
+ * The file is read as a stream with {@link #read(Gson, JsonReader)}, which binds the sections used by the binding and
+ * skips all other sections of the file.
  *
  * @author Pawel Pieczul - initial contribution
  *
  */
 class LxJsonApp3 {
 
+    private static final Type CONTROLS_TYPE = new TypeToken<Map<String, LxJsonControl>>() {
+    }.getType();
+    private static final Type ROOMS_TYPE = new TypeToken<Map<String, LxJsonRoom>>() {
+    }.getType();
+    private static final Type CATS_TYPE = new TypeToken<Map<String, LxJsonCat>>() {
+    }.getType();
+
     LxJsonInfo msInfo;
     Map<String, LxJsonControl> controls;
     Map<String, LxJsonRoom> rooms;
     Map<String, LxJsonCat> cats;
 
+    /**
+     * Reads LoxApp3.json structure file from a JSON stream
+     *
+     * @param gson
+     *            Gson object used to bind the sections of the file
+     * @param reader
+     *            JSON stream positioned at the beginning of the file
+     * @return
+     *         parsed configuration or null if the file is empty
+     * @throws IOException
+     *             when the file is not a valid JSON structure file
+     */
+    static LxJsonApp3 read(Gson gson, JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        LxJsonApp3 config = new LxJsonApp3();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "msInfo":
+                    config.msInfo = gson.fromJson(reader, LxJsonInfo.class);
+                    break;
+                case "controls":
+                    config.controls = gson.fromJson(reader, CONTROLS_TYPE);
+                    break;
+                case "rooms":
+                    config.rooms = gson.fromJson(reader, ROOMS_TYPE);
+                    break;
+                case "cats":
+                    config.cats = gson.fromJson(reader, CATS_TYPE);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return config;
+    }
+
     class LxJsonInfo {
         String serialNr;
         String location;
@@ -11,8 +11,8 @@ package org.openhab.binding.loxone.internal.core;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -70,11 +70,12 @@ public class LxServer {
     private int comErrorDelay = 30;
 
     // Data structures
-    private Set<LxUuid> uuids = new HashSet<>();
+    private Map<LxUuid, LxUuid> uuids = new HashMap<>();
     private Map<LxUuid, LxControl> controls = new HashMap<>();
     private Map<LxUuid, LxContainer> rooms = new HashMap<>();
     private Map<LxUuid, LxCategory> categories = new HashMap<>();
     private Map<LxUuid, LxControlState> states = new HashMap<>();
+    private LxStateIndex stateIndex = new LxStateIndex();
     private List<LxServerListener> listeners = new ArrayList<>();
 
     // Services
@@ -88,6 +89,16 @@ public class LxServer {
     private int debugId;
     private static AtomicInteger staticDebugId = new AtomicInteger(1);
 
+    // State update batching
+    private static final int MAX_STATE_UPDATE_BATCH_SIZE = 500;
+    private Set<LxControl> updatedControls = new LinkedHashSet<>();
+    // statistics of the server thread, available from the getters and logged when the thread ends
+    private volatile long stateUpdates;
+    private volatile long stateUpdateBatches;
+    private volatile long controlUpdates;
+    private volatile int maxStateUpdateBatchSize;
+    private volatile int maxQueueDepth;
+
     /**
      * Creates a new instance of Loxone Miniserver with provided host address and credentials.
      *
@@ -389,23 +400,7 @@ public class LxServer {
                                 }
                                 break;
                             case STATE_UPDATE:
-                                LxWsStateUpdateEvent update = (LxWsStateUpdateEvent) wsMsg.getObject();
-                                LxControlState state = findState(update.getUuid());
-                                if (state != null) {
-                                    state.setValue(update.getValue(), update.getText());
-                                    LxControl control = state.getControl();
-                                    if (control != null) {
-                                        logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
-                                                update.getUuid(), control.getName(), state.getName(), update.getValue(),
-                                                update.getText());
-                                        for (LxServerListener listener : listeners) {
-                                            listener.onControlStateUpdate(control);
-                                        }
-                                    } else {
-                                        logger.debug("[{}] State update {} ({}) of unknown control", debugId,
-                                                update.getUuid(), state.getName());
-                                    }
-                                }
+                                processStateUpdates(wsMsg);
                                 break;
                             case SERVER_ONLINE:
                                 for (LxServerListener listener : listeners) {
@@ -453,13 +448,131 @@ public class LxServer {
                     }
                 }
             }
-            logger.debug("[{}] Thread ending", debugId);
+            logger.debug("[{}] Thread ending, {} state updates in {} batches (max {}), {} control updates, "
+                    + "max queue depth {}", debugId, stateUpdates, stateUpdateBatches, maxStateUpdateBatchSize,
+                    controlUpdates, maxQueueDepth);
             socketClient.disconnect();
             monitorThread = null;
             queue = null;
         }
     }
 
+    /**
+     * Processes a batch of state updates, that starts with the provided event and continues with all state updates
+     * waiting in the queue. Each state gets the latest value received and each control, which states were updated, is
+     * passed to the listeners only once with its final state values.
+     *
+     * @param first
+     *            state update event taken from the queue
+     */
+    private void processStateUpdates(LxServerEvent first) {
+        int queueDepth = queue.size() + 1;
+        int batchSize = 0;
+        LxServerEvent event = first;
+        while (event != null) {
+            applyStateUpdate((LxWsStateUpdateEvent) event.getObject());
+            batchSize++;
+            LxServerEvent next = queue.peek();
+            if (batchSize >= MAX_STATE_UPDATE_BATCH_SIZE || next == null || next.getEvent() != EventType.STATE_UPDATE) {
+                break;
+            }
+            event = queue.poll();
+        }
+
+        logger.trace("[{}] Processing {} state updates of {} controls, queue depth {}", debugId, batchSize,
+                updatedControls.size(), queueDepth);
+        for (LxControl control : updatedControls) {
+            for (LxServerListener listener : listeners) {
+                listener.onControlStateUpdate(control);
+            }
+        }
+
+        stateUpdates += batchSize;
+        stateUpdateBatches++;
+        controlUpdates += updatedControls.size();
+        maxStateUpdateBatchSize = Math.max(maxStateUpdateBatchSize, batchSize);
+        maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+        updatedControls.clear();
+    }
+
+    /**
+     * Sets the new value of the state of a state update and remembers its control for the listeners.
+     *
+     * @param update
+     *            state update received from the Miniserver
+     */
+    private void applyStateUpdate(LxWsStateUpdateEvent update) {
+        LxControlState state = stateIndex.get(update.getUuidMostSignificantBits(),
+                update.getUuidLeastSignificantBits());
+        if (state != null) {
+            state.setValue(update.getValue(), update.getText());
+            LxControl control = state.getControl();
+            if (control != null) {
+                logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId, state.getUuid(),
+                        control.getName(), state.getName(), update.getValue(), update.getText());
+                updatedControls.add(control);
+            } else {
+                logger.debug("[{}] State update {} ({}) of unknown control", debugId, state.getUuid(),
+                        state.getName());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of events waiting in the queue of the server thread
+     *
+     * @return current queue depth or 0 if the server thread is not running
+     */
+    public int getQueueDepth() {
+        BlockingQueue<LxServerEvent> queue = this.queue;
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Gets the highest number of events found in the queue when a batch of state updates was started
+     *
+     * @return maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Gets the number of state updates received from the Miniserver
+     *
+     * @return number of state updates
+     */
+    public long getStateUpdates() {
+        return stateUpdates;
+    }
+
+    /**
+     * Gets the number of batches the state updates were processed in
+     *
+     * @return number of batches
+     */
+    public long getStateUpdateBatches() {
+        return stateUpdateBatches;
+    }
+
+    /**
+     * Gets the number of control updates passed to the listeners, each control is passed once per batch
+     *
+     * @return number of control updates
+     */
+    public long getControlUpdates() {
+        return controlUpdates;
+    }
+
+    /**
+     * Gets the highest number of state updates processed in one batch
+     *
+     * @return maximum batch size
+     */
+    public int getMaxStateUpdateBatchSize() {
+        return maxStateUpdateBatchSize;
+    }
+
     /**
      * Updates runtime configuration from parsed JSON configuration file of Loxone Miniserver (LoxApp3.json)
      *
@@ -469,7 +582,7 @@ public class LxServer {
     private void updateConfig(LxJsonApp3 config) {
         logger.trace("[{}] Updating configuration from Miniserver", debugId);
 
-        for (LxUuid id : uuids) {
+        for (LxUuid id : uuids.values()) {
             id.setUpdate(false);
         }
         for (LxUuid id : states.keySet()) {
@@ -517,6 +630,7 @@ public class LxServer {
         removeUnusedFromMap(categories);
         removeUnusedFromMap(controls);
         removeUnusedFromMap(states);
+        stateIndex.rebuild(states.values());
     }
 
     /**
@@ -553,12 +667,7 @@ public class LxServer {
         if (uuids == null || id == null) {
             return null;
         }
-        for (LxUuid i : uuids) {
-            if (id.equals(i)) {
-                return i;
-            }
-        }
-        return null;
+        return uuids.get(id);
     }
 
     /**
@@ -575,7 +684,7 @@ public class LxServer {
         if (i != null) {
             return i;
         }
-        uuids.add(id);
+        uuids.put(id, id);
         return id;
     }
 
@@ -622,24 +731,6 @@ public class LxServer {
         return nr;
     }
 
-    /**
-     * Search for a state with given UUID
-     *
-     * @param id
-     *            UUID of state to locate
-     * @return
-     *         state object
-     */
-    private LxControlState findState(LxUuid id) {
-        if (states == null || id == null) {
-            return null;
-        }
-        if (states.containsKey(id)) {
-            return states.get(id);
-        }
-        return null;
-    }
-
     /**
      * Search for a category on the server
      *
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.util.Collection;
+
+/**
+ * An index of control states by the 128-bit binary value of their UUIDs.
+ * <p>
+ * State updates are received from the Miniserver in binary messages. The index allows to find the state of an update
+ * directly from the two 64-bit halves of the UUID, without creating a {@link LxUuid} or any other object.
+ * The index is built from all states of the server after the configuration has been received.
+ *
+ * @author agent - initial contribution
+ *
+ */
+class LxStateIndex {
+    private long[] mostSignificantBits = new long[0];
+    private long[] leastSignificantBits = new long[0];
+    private LxControlState[] states = new LxControlState[0];
+
+    /**
+     * Rebuilds the index with the provided states. States, which UUID has no binary value, are skipped.
+     *
+     * @param newStates
+     *            states to put in the index
+     */
+    void rebuild(Collection<LxControlState> newStates) {
+        int capacity = 16;
+        while (capacity < newStates.size() * 2) {
+            capacity <<= 1;
+        }
+        long[] msbs = new long[capacity];
+        long[] lsbs = new long[capacity];
+        LxControlState[] table = new LxControlState[capacity];
+
+        for (LxControlState state : newStates) {
+            LxUuid id = state.getUuid();
+            if (id == null || !id.isBinary()) {
+                continue;
+            }
+            long msb = id.getMostSignificantBits();
+            long lsb = id.getLeastSignificantBits();
+            int slot = LxUuid.hashCode(msb, lsb) & (capacity - 1);
+            while (table[slot] != null && (msbs[slot] != msb || lsbs[slot] != lsb)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            table[slot] = state;
+        }
+
+        mostSignificantBits = msbs;
+        leastSignificantBits = lsbs;
+        states = table;
+    }
+
+    /**
+     * Search for a state with the given binary UUID
+     *
+     * @param msb
+     *            first 64 bits of the UUID
+     * @param lsb
+     *            last 64 bits of the UUID
+     * @return
+     *         state object or null if not found
+     */
+    LxControlState get(long msb, long lsb) {
+        LxControlState[] table = states;
+        if (table.length == 0) {
+            return null;
+        }
+        int slot = LxUuid.hashCode(msb, lsb) & (table.length - 1);
+        while (table[slot] != null) {
+            if (mostSignificantBits[slot] == msb && leastSignificantBits[slot] == lsb) {
+                return table[slot];
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return null;
+    }
+}
@@ -8,14 +8,14 @@
  */
 package org.openhab.binding.loxone.internal.core;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 /**
  * Unique identifier of an object on Loxone Miniserver.
  * <p>
  * It is defined by the Miniserver. UUID can represent a control, room, category, etc. and provides a unique ID space
  * across all objects residing on the Miniserver.
+ * <p>
+ * UUIDs in the standard Loxone format (8-4-4-16 hex digits) are also kept as a 128-bit binary value, which is used to
+ * compare them and to look up UUIDs received in binary messages without building a string.
  *
  * @author Pawel Pieczul - initial contribution
  *
@@ -24,6 +24,9 @@ public class LxUuid {
     private String uuid;
     private String uuidOriginal;
     private boolean updated;
+    private boolean binary;
+    private long mostSignificantBits;
+    private long leastSignificantBits;
 
     /**
      * Create a new {@link LxUuid} object from an UUID on a Miniserver.
@@ -35,20 +38,142 @@ public class LxUuid {
         init(uuid);
     }
 
+    /**
+     * Create a new {@link LxUuid} object from a binary UUID received from a Miniserver.
+     *
+     * @param data
+     *            buffer with the binary message
+     * @param offset
+     *            offset of the UUID in the buffer
+     */
     public LxUuid(byte data[], int offset) {
-        String id = String.format("%08x-%04x-%04x-%02x%02x%02x%02x%02x%02x%02x%02x",
-                ByteBuffer.wrap(data, offset, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(),
-                ByteBuffer.wrap(data, offset + 4, 2).order(ByteOrder.LITTLE_ENDIAN).getShort(),
-                ByteBuffer.wrap(data, offset + 6, 2).order(ByteOrder.LITTLE_ENDIAN).getShort(), data[offset + 8],
-                data[offset + 9], data[offset + 10], data[offset + 11], data[offset + 12], data[offset + 13],
-                data[offset + 14], data[offset + 15]);
-        init(id);
+        this(getMostSignificantBits(data, offset), getLeastSignificantBits(data, offset));
+    }
+
+    /**
+     * Create a new {@link LxUuid} object from a 128-bit binary value.
+     *
+     * @param mostSignificantBits
+     *            first 64 bits of the UUID
+     * @param leastSignificantBits
+     *            last 64 bits of the UUID
+     */
+    LxUuid(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        binary = true;
+        uuid = format(mostSignificantBits, leastSignificantBits);
+        uuidOriginal = uuid.toLowerCase();
+        updated = true;
     }
 
     private void init(String uuid) {
         uuidOriginal = uuid;
         this.uuid = uuidOriginal.replaceAll("[^a-zA-Z0-9-]", "-").toUpperCase();
         updated = true;
+        parse(this.uuid);
+    }
+
+    /**
+     * Parses a UUID in the standard format 'xxxxxxxx-xxxx-xxxx-xxxxxxxxxxxxxxxx' into its binary value.
+     * UUIDs in other formats are only compared by their string.
+     */
+    private void parse(String id) {
+        if (id.length() != 35 || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-') {
+            return;
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < id.length(); i++) {
+            if (i == 8 || i == 13 || i == 18) {
+                continue;
+            }
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                return;
+            }
+            if (i < 18) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        mostSignificantBits = msb;
+        leastSignificantBits = lsb;
+        binary = true;
+    }
+
+    private static String format(long msb, long lsb) {
+        StringBuilder builder = new StringBuilder(35);
+        appendHex(builder, msb >>> 32, 8);
+        builder.append('-');
+        appendHex(builder, msb >>> 16, 4);
+        builder.append('-');
+        appendHex(builder, msb, 4);
+        builder.append('-');
+        appendHex(builder, lsb, 16);
+        return builder.toString();
+    }
+
+    private static void appendHex(StringBuilder builder, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            builder.append(Character.toUpperCase(Character.forDigit((int) (value >>> (i * 4)) & 0xF, 16)));
+        }
+    }
+
+    /**
+     * Reads the first 64 bits of a binary UUID. Miniserver sends the first three fields of the UUID in little endian
+     * order.
+     *
+     * @param data
+     *            buffer with the binary message
+     * @param offset
+     *            offset of the UUID in the buffer
+     * @return
+     *         first 64 bits of the UUID, as they appear in the string representation
+     */
+    static long getMostSignificantBits(byte data[], int offset) {
+        long data1 = (data[offset] & 0xFFL) | (data[offset + 1] & 0xFFL) << 8 | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24;
+        long data2 = (data[offset + 4] & 0xFFL) | (data[offset + 5] & 0xFFL) << 8;
+        long data3 = (data[offset + 6] & 0xFFL) | (data[offset + 7] & 0xFFL) << 8;
+        return data1 << 32 | data2 << 16 | data3;
+    }
+
+    /**
+     * Reads the last 64 bits of a binary UUID, which are sent in big endian order.
+     *
+     * @param data
+     *            buffer with the binary message
+     * @param offset
+     *            offset of the UUID in the buffer
+     * @return
+     *         last 64 bits of the UUID
+     */
+    static long getLeastSignificantBits(byte data[], int offset) {
+        long value = 0;
+        for (int i = 8; i < 16; i++) {
+            value = value << 8 | (data[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    /**
+     * See if the UUID has a 128-bit binary value. Only such UUIDs can be received in binary messages.
+     *
+     * @return
+     *         true if the UUID is in the standard format
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    long getLeastSignificantBits() {
+        return leastSignificantBits;
     }
 
     @Override
@@ -63,14 +188,25 @@ public class LxUuid {
             return false;
         }
         LxUuid id = (LxUuid) o;
+        if (binary && id.binary) {
+            return mostSignificantBits == id.mostSignificantBits && leastSignificantBits == id.leastSignificantBits;
+        }
         return uuid.equals(id.uuid);
     }
 
     @Override
     public int hashCode() {
+        if (binary) {
+            return hashCode(mostSignificantBits, leastSignificantBits);
+        }
         return uuid.hashCode();
     }
 
+    static int hashCode(long mostSignificantBits, long leastSignificantBits) {
+        long hash = mostSignificantBits ^ leastSignificantBits;
+        return (int) (hash >> 32) ^ (int) hash;
+    }
+
     @Override
     public String toString() {
         return uuid;
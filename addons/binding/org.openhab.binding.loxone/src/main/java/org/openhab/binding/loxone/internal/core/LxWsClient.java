@@ -9,6 +9,7 @@
 package org.openhab.binding.loxone.internal.core;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.InetAddress;
 import java.net.URI;
@@ -42,7 +43,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 
 /**
  * Websocket client facilitating communication with Loxone Miniserver.
@@ -624,8 +627,35 @@ class LxWsClient {
             }
         }
 
+        /**
+         * Receives a text message as a stream. The structure file received in
+         * {@link ClientState#UPDATING_CONFIGURATION} state is parsed from the stream while its frames arrive, so it is
+         * never held in memory as a whole. All other text messages are short and are read into a string.
+         *
+         * @param reader
+         *            stream of the text message
+         */
         @OnWebSocketMessage
-        public void onMessage(String msg) {
+        public void onMessage(Reader reader) {
+            synchronized (state) {
+                if (state == ClientState.UPDATING_CONFIGURATION) {
+                    logger.trace("[{}] receiving configuration in state {}", debugId, state);
+                    updateConfiguration(reader);
+                    return;
+                }
+            }
+            String msg;
+            try {
+                msg = readMessage(reader);
+            } catch (IOException e) {
+                notifyAndClose(LxOfflineReason.COMMUNICATION_ERROR,
+                        "Communication error when receiving message : " + e.getMessage());
+                return;
+            }
+            onMessage(msg);
+        }
+
+        private void onMessage(String msg) {
             if (logger.isTraceEnabled()) {
                 String trace = msg;
                 if (trace.length() > 100) {
@@ -687,19 +717,6 @@ class LxWsClient {
                             }
                             break;
                         case UPDATING_CONFIGURATION:
-                            LxJsonApp3 config = gson.fromJson(msg, LxJsonApp3.class);
-                            if (config != null) {
-                                logger.debug("[{}] Received configuration from server", debugId);
-                                notifyMaster(EventType.RECEIVED_CONFIG, null, config);
-                                sendString(CMD_ENABLE_UPDATES);
-                                setClientState(ClientState.RUNNING);
-                                startResponseTimeout();
-                                notifyMaster(EventType.SERVER_ONLINE, null, null);
-                            } else {
-                                notifyAndClose(LxOfflineReason.INTERNAL_ERROR,
-                                        "Error processing received configuration");
-                            }
-                            break;
                         case RUNNING:
                         case CLOSING:
                         default:
@@ -712,6 +729,65 @@ class LxWsClient {
             }
         }
 
+        /**
+         * Parses the LoxApp3.json structure file from the stream of the received message and brings the server
+         * online with it
+         *
+         * @param reader
+         *            stream of the received message
+         */
+        private void updateConfiguration(Reader reader) {
+            // the response is arriving, its transfer must not be cut by the response timeout
+            stopResponseTimeout();
+            LxJsonApp3 config = null;
+            try {
+                JsonReader jsonReader = new JsonReader(reader);
+                jsonReader.setLenient(true);
+                config = LxJsonApp3.read(gson, jsonReader);
+            } catch (IOException | JsonParseException e) {
+                logger.debug("[{}] Error parsing received configuration: {}", debugId, e.getMessage());
+            }
+            try {
+                if (config != null) {
+                    logger.debug("[{}] Received configuration from server", debugId);
+                    notifyMaster(EventType.RECEIVED_CONFIG, null, config);
+                    sendString(CMD_ENABLE_UPDATES);
+                    setClientState(ClientState.RUNNING);
+                    startResponseTimeout();
+                    notifyMaster(EventType.SERVER_ONLINE, null, null);
+                } else {
+                    notifyAndClose(LxOfflineReason.INTERNAL_ERROR, "Error processing received configuration");
+                }
+            } catch (IOException e) {
+                notifyAndClose(LxOfflineReason.COMMUNICATION_ERROR,
+                        "Communication error when processing message : " + e.getMessage());
+            }
+        }
+
+        /**
+         * Reads a text message from its stream. Streamed messages are not limited by the websocket policy, so the
+         * configured maximum text message size is checked here.
+         *
+         * @param reader
+         *            stream of the received message
+         * @return
+         *         received message
+         * @throws IOException
+         *             when the stream can't be read or the message is too long
+         */
+        private String readMessage(Reader reader) throws IOException {
+            StringBuilder msg = new StringBuilder();
+            char[] buffer = new char[1024];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                msg.append(buffer, 0, read);
+                if (msg.length() > maxTextMsgSize * 1024) {
+                    throw new IOException("Text message exceeds " + maxTextMsgSize + " KB");
+                }
+            }
+            return msg.toString();
+        }
+
         /**
          * Stops keep alive thread and ceases sending keep alive messages to the Miniserver
          */
@@ -8,19 +8,17 @@
  */
 package org.openhab.binding.loxone.internal.core;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 /**
  * An event received from Loxone Miniserver with control's state update
+ * <p>
+ * The UUID of the state is kept as its 128-bit binary value, which is used to find the state in {@link LxStateIndex}.
  *
  * @author Pawel Pieczul - initial contribution
  *
  */
 class LxWsStateUpdateEvent {
-    private LxUuid uuid;
-    @SuppressWarnings("unused")
-    private LxUuid iconUuid;
+    private long uuidMostSignificantBits;
+    private long uuidLeastSignificantBits;
     private Double value;
     private String text;
     private int size = 0;
@@ -36,25 +34,40 @@ class LxWsStateUpdateEvent {
      *            offset in buffer where event is expected
      */
     LxWsStateUpdateEvent(boolean isValueEvent, byte data[], int offset) throws IndexOutOfBoundsException {
-        uuid = new LxUuid(data, offset);
+        if (offset + 16 > data.length) {
+            throw new IndexOutOfBoundsException("State update event exceeds message");
+        }
+        uuidMostSignificantBits = LxUuid.getMostSignificantBits(data, offset);
+        uuidLeastSignificantBits = LxUuid.getLeastSignificantBits(data, offset);
         offset += 16;
 
         if (isValueEvent) {
-            value = ByteBuffer.wrap(data, offset, 8).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+            value = Double.longBitsToDouble(readLittleEndian(data, offset, 8));
             size = 24;
             return;
         }
 
-        iconUuid = new LxUuid(data, offset);
+        // icon UUID is not used
         offset += 16;
 
-        int textLen = ByteBuffer.wrap(data, offset, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        int textLen = (int) readLittleEndian(data, offset, 4);
         offset += 4;
 
         text = new String(data, offset, textLen);
         size = 36 + (textLen % 4 > 0 ? textLen + 4 - (textLen % 4) : textLen);
     }
 
+    private static long readLittleEndian(byte data[], int offset, int length) {
+        if (offset < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("State update event exceeds message");
+        }
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = value << 8 | (data[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
     /**
      * Get UUID of this state
      *
@@ -62,7 +75,27 @@ class LxWsStateUpdateEvent {
      *         UUID of this state
      */
     LxUuid getUuid() {
-        return uuid;
+        return new LxUuid(uuidMostSignificantBits, uuidLeastSignificantBits);
+    }
+
+    /**
+     * Get first 64 bits of the binary UUID of this state
+     *
+     * @return
+     *         first 64 bits of the UUID
+     */
+    long getUuidMostSignificantBits() {
+        return uuidMostSignificantBits;
+    }
+
+    /**
+     * Get last 64 bits of the binary UUID of this state
+     *
+     * @return
+     *         last 64 bits of the UUID
+     */
+    long getUuidLeastSignificantBits() {
+        return uuidLeastSignificantBits;
     }
 
     /**
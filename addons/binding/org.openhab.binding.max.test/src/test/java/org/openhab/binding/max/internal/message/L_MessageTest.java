@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.max.internal.message;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.max.internal.device.Device;
+import org.openhab.binding.max.internal.device.DeviceConfiguration;
+import org.openhab.binding.max.internal.device.HeatingThermostat;
+
+/**
+ * Tests cases for {@link L_Message}.
+ *
+ * @author agent - Initial contribution
+ */
+public class L_MessageTest {
+
+    private static final String C_MESSAGE = "C:0b0da3,0gsNowIBEABLRVEwNTQ0MjQyLCQ9CQcYAzAM/wBIYViRSP1ZFE0gTSBNIEUgRSBFIEUgRSBFIEhhWJFQ/VkVUSBRIFEgRSBFIEUgRSBFIEUgSFBYWkj+WRRNIE0gTSBFIEUgRSBFIEUgRSBIUFhaSP5ZFE0gTSBNIEUgRSBFIEUgRSBFIEhQWFpI/lkUTSBNIE0gRSBFIEUgRSBFIEUgSFBYWkj+WRRNIE0gTSBFIEUgRSBFIEUgRSBIUFhaSP5ZFE0gTSBNIEUgRSBFIEUgRSBFIA==";
+
+    private static final String L_MESSAGE_20 = "L:CwsNowASGAAoANMA";
+    private static final String L_MESSAGE_22 = "L:CwsNowASGAAsANMA";
+
+    private List<DeviceConfiguration> configurations = new ArrayList<DeviceConfiguration>();
+    private List<Device> devices = new ArrayList<Device>();
+
+    @Before
+    public void Before() {
+        configurations.add(DeviceConfiguration.create(new C_Message(C_MESSAGE)));
+    }
+
+    @Test
+    public void newDeviceTest() {
+        Collection<? extends Device> changed = new L_Message(L_MESSAGE_20).updateDevices(devices, configurations);
+
+        assertEquals(1, devices.size());
+        assertEquals(1, changed.size());
+        assertEquals("0b0da3", devices.get(0).getRFAddress());
+        assertEquals(20.0, ((HeatingThermostat) devices.get(0)).getTemperatureSetpoint().doubleValue(), 0.01);
+    }
+
+    @Test
+    public void unchangedDeviceTest() {
+        new L_Message(L_MESSAGE_20).updateDevices(devices, configurations);
+        Collection<? extends Device> changed = new L_Message(L_MESSAGE_20).updateDevices(devices, configurations);
+
+        assertEquals(1, devices.size());
+        assertTrue(changed.isEmpty());
+    }
+
+    @Test
+    public void changedDeviceTest() {
+        new L_Message(L_MESSAGE_20).updateDevices(devices, configurations);
+        Device device = devices.get(0);
+        Collection<? extends Device> changed = new L_Message(L_MESSAGE_22).updateDevices(devices, configurations);
+
+        assertEquals(1, devices.size());
+        assertEquals(1, changed.size());
+        assertSame(device, changed.iterator().next());
+        assertEquals(22.0, ((HeatingThermostat) device).getTemperatureSetpoint().doubleValue(), 0.01);
+    }
+}
@@ -48,6 +48,9 @@ public abstract class Device {
     private boolean linkStatusError;
     private HashMap<String, Object> properties = new HashMap<>();
 
+    /** the status bytes of the last L message */
+    private byte[] rawStatus;
+
     public Device(DeviceConfiguration c) {
         this.serialNumber = c.getSerialNumber();
         this.rfAddress = c.getRFAddress();
@@ -127,6 +130,7 @@ public abstract class Device {
     public static Device update(byte[] raw, List<DeviceConfiguration> configurations, Device device) {
 
         String rfAddress = device.getRFAddress();
+        device.rawStatus = raw;
 
         // byte 4 is skipped
 
@@ -236,6 +240,26 @@ public abstract class Device {
         return device;
     }
 
+    /**
+     * Checks if the status bytes of the device in the L message differ from the ones of the last update.
+     *
+     * @param buffer the decoded L message
+     * @param offset the offset of the status bytes of the device within the buffer
+     * @param length the number of status bytes
+     * @return true if the status changed
+     */
+    public boolean isRawStatusChanged(byte[] buffer, int offset, int length) {
+        if (rawStatus == null || rawStatus.length != length) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            if (rawStatus[i] != buffer[offset + i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private final void setBatteryLow(boolean batteryLow) {
         if (this.batteryLow != batteryLow) {
             this.updated = true;
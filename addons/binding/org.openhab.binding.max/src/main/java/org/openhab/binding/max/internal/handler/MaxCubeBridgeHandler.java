@@ -10,17 +10,13 @@ package org.openhab.binding.max.internal.handler;
 
 import static org.openhab.binding.max.MaxBinding.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
 import java.net.ConnectException;
-import java.net.Socket;
-import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -101,10 +97,23 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     /** timeout on network connection **/
     private static final int NETWORK_TIMEOUT = 10000;
 
+    /** timeout for the response of the inclusion mode **/
+    private static final int INCLUSION_TIMEOUT = 80000;
+
     private ArrayList<Device> devices = new ArrayList<Device>();
     private ArrayList<RoomInformation> rooms;
     private HashSet<String> lastActiveDevices = new HashSet<String>();
 
+    /** devices created or changed by the L messages since the listeners were notified */
+    private Set<Device> changedDevices = new LinkedHashSet<Device>();
+
+    /** notify the listeners of all devices on the next refresh, not only of the changed ones */
+    private volatile boolean notifyAllDevices = true;
+    private long lastAllDevicesNotification;
+
+    /** interval to notify the listeners of all devices, the devices handlers check the actual temperature age */
+    private static final long ALL_DEVICES_NOTIFICATION_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
     /** MAX! Thermostat default off temperature */
     private static final DecimalType DEFAULT_OFF_TEMPERATURE = new DecimalType(4.5);
 
@@ -125,7 +134,6 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     private int maxRequestsPerConnection;
     private String ntpServer1;
     private String ntpServer2;
-    private int requestCount = 0;
     private boolean propertiesSet = false;
     private boolean roomPropertiesSet = false;
 
@@ -142,11 +150,9 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     private int freeMemorySlots;
 
     /**
-     * connection socket and reader/writer for execute method
+     * connection to the Cube, its reader thread processes the messages of the Cube
      */
-    private Socket socket = null;
-    private BufferedReader reader = null;
-    private OutputStreamWriter writer = null;
+    private MaxCubeConnection connection;
 
     private boolean previousOnline = false;
 
@@ -172,6 +178,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (command instanceof RefreshType) {
             logger.debug("Refresh command received.");
+            notifyAllDevices = true;
             refreshData();
         } else {
             logger.warn("No bridge commands defined. Cannot process '{}'.", command.toString());
@@ -205,6 +212,14 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         logger.debug("Exclusive mode  {}.", exclusive);
         logger.debug("Max Requests    {}.", maxRequestsPerConnection);
 
+        connection = new MaxCubeConnection(ipAddress, port, NETWORK_TIMEOUT, exclusive, maxRequestsPerConnection,
+                new MaxCubeConnection.LineListener() {
+                    @Override
+                    public void onLineReceived(String line) {
+                        processLine(line);
+                    }
+                });
+
         previousOnline = true; // To trigger offline in case no connection @ startup
         startAutomaticRefresh();
     }
@@ -284,19 +299,13 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     }
 
     public void deviceInclusion() {
-        if (previousOnline && socket != null) {
+        if (previousOnline && connection != null) {
             updateStatus(ThingStatus.ONLINE, ThingStatusDetail.CONFIGURATION_PENDING, "Inclusion");
             logger.info("Start MAX! inclusion mode for 60 seconds");
-            try {
-                socket.setSoTimeout((80000));
-                if (!sendCubeCommand(new N_Command())) {
-                    logger.debug("Error during Inclusion mode");
-                }
-                logger.info("End MAX! inclusion mode");
-                socket.setSoTimeout((NETWORK_TIMEOUT));
-            } catch (SocketException e) {
-                logger.debug("Timeout during MAX! inclusion mode");
+            if (!sendCubeCommand(new N_Command(), INCLUSION_TIMEOUT)) {
+                logger.debug("Error during Inclusion mode");
             }
+            logger.info("End MAX! inclusion mode");
         } else {
             logger.warn("Need to be online to start inclusion mode");
         }
@@ -328,16 +337,20 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     /**
      * Takes a command from the command queue and send it to
-     * {@link executeCommand} for execution.
+     * {@link executeCommand} for execution. The command is sent without holding
+     * the lock of the handler, so the reader of the connection can process the
+     * messages of the Cube in the meantime.
      *
      */
-    private synchronized void sendCommands() {
+    private void sendCommands() {
 
         SendCommand sendCommand = commandQueue.poll();
         if (sendCommand != null) {
             CubeCommand cmd = sendCommand.getCubeCommand();
             if (cmd == null) {
-                cmd = getCommand(sendCommand);
+                synchronized (this) {
+                    cmd = getCommand(sendCommand);
+                }
             }
             if (cmd != null) {
                 // Actual sending of the data to the Max! Cube Lan Gateway
@@ -364,31 +377,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
             if (sendCubeCommand(new L_Command())) {
                 updateStatus(ThingStatus.ONLINE);
                 previousOnline = true;
-                for (Device di : devices) {
-                    if (lastActiveDevices != null && lastActiveDevices.contains(di.getSerialNumber())) {
-                        for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
-                            try {
-                                deviceStatusListener.onDeviceStateChanged(getThing().getUID(), di);
-                            } catch (Exception e) {
-                                logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                                unregisterDeviceStatusListener(deviceStatusListener);
-                            }
-                        }
-                    }
-                    // New device, not seen before, pass to Discovery
-                    else {
-                        for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
-                            try {
-                                deviceStatusListener.onDeviceAdded(getThing(), di);
-                                di.setUpdated(true);
-                                deviceStatusListener.onDeviceStateChanged(getThing().getUID(), di);
-                            } catch (Exception e) {
-                                logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                            }
-                            lastActiveDevices.add(di.getSerialNumber());
-                        }
-                    }
-                }
+                notifyDeviceListeners();
             } else if (previousOnline) {
                 onConnectionLost();
             }
@@ -398,9 +387,53 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Passes the devices changed by the L messages to the listeners, and periodically all devices
+     */
+    private synchronized void notifyDeviceListeners() {
+        long now = System.currentTimeMillis();
+        boolean allDevices = notifyAllDevices || now - lastAllDevicesNotification >= ALL_DEVICES_NOTIFICATION_INTERVAL;
+        if (allDevices) {
+            notifyAllDevices = false;
+            lastAllDevicesNotification = now;
+        } else {
+            logger.trace("{} of {} devices changed.", changedDevices.size(), devices.size());
+        }
+        for (Device di : devices) {
+            if (lastActiveDevices != null && lastActiveDevices.contains(di.getSerialNumber())) {
+                if (!allDevices && !changedDevices.contains(di)) {
+                    continue;
+                }
+                for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
+                    try {
+                        deviceStatusListener.onDeviceStateChanged(getThing().getUID(), di);
+                    } catch (Exception e) {
+                        logger.error("An exception occurred while calling the DeviceStatusListener", e);
+                        unregisterDeviceStatusListener(deviceStatusListener);
+                    }
+                }
+            }
+            // New device, not seen before, pass to Discovery
+            else {
+                for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
+                    try {
+                        deviceStatusListener.onDeviceAdded(getThing(), di);
+                        di.setUpdated(true);
+                        deviceStatusListener.onDeviceStateChanged(getThing().getUID(), di);
+                    } catch (Exception e) {
+                        logger.error("An exception occurred while calling the DeviceStatusListener", e);
+                    }
+                    lastActiveDevices.add(di.getSerialNumber());
+                }
+            }
+        }
+        changedDevices.clear();
+    }
+
     public void onConnectionLost() {
         logger.debug("Bridge connection lost. Updating thing status to OFFLINE.");
         previousOnline = false;
+        notifyAllDevices = true;
         updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR);
         for (Thing thing : getThing().getThings()) {
             ThingHandler handler = thing.getHandler();
@@ -422,7 +455,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
         boolean result = deviceStatusListeners.add(deviceStatusListener);
         if (result) {
-            // onUpdate();
+            notifyAllDevices = true;
         }
         return result;
     }
@@ -443,119 +476,62 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     }
 
     /**
-     * Connects to the Max! Cube Lan gateway and send a command to Cube
-     * and process the message
+     * Connects to the Max! Cube Lan gateway and send a command to Cube.
+     * The messages of the Cube are processed by the reader of the connection.
      *
      * @param {@link CubeCommand}
      * @return boolean success
      */
-    private synchronized boolean sendCubeCommand(CubeCommand command) {
-        synchronized (MaxCubeBridgeHandler.class) {
-            boolean sendSuccess = false;
-            try {
-                if (socket == null || socket.isClosed()) {
-                    this.socketConnect();
-                }
-
-                if (maxRequestsPerConnection > 0 && requestCount >= maxRequestsPerConnection) {
-                    logger.debug("maxRequestsPerConnection reached, reconnecting.");
-                    socket.close();
-                    this.socketConnect();
-                } else {
-
-                    if (requestCount == 0) {
-                        logger.debug("Connect to MAX! Cube");
-                        readliness("L:");
-
-                    }
-                    if (!(requestCount == 0 && command instanceof L_Command)) {
-
-                        logger.debug("Sending request #{} to MAX! Cube", this.requestCount);
-                        if (writer == null) {
-                            logger.warn("Can't write to MAX! Cube");
-                            this.socketConnect();
-                        }
-
-                        writer.write(command.getCommandString());
-                        logger.trace("Write string to Max! Cube {}: {}", ipAddress, command.getCommandString());
-                        writer.flush();
-                        if (command.getReturnStrings() != null) {
-                            readliness(command.getReturnStrings());
-                        } else {
-                            socketClose();
-                        }
-                    }
-                }
-
-                requestCount++;
-                sendSuccess = true;
+    private boolean sendCubeCommand(CubeCommand command) {
+        return sendCubeCommand(command, NETWORK_TIMEOUT);
+    }
 
-                if (!exclusive) {
-                    socketClose();
-                }
-            } catch (ConnectException e) {
-                logger.debug("Connection timed out on {} port {}", ipAddress, port);
-                sendSuccess = false;
-                socketClose(); // reconnect on next execution
-            } catch (UnknownHostException e) {
-                logger.debug("Host error occurred during execution: {}", e.getMessage());
-                sendSuccess = false;
-                socketClose(); // reconnect on next execution
-            } catch (IOException e) {
-                logger.debug("IO error occurred during execution: {}", e.getMessage());
-                sendSuccess = false;
-                socketClose(); // reconnect on next execution
-            } catch (Exception e) {
-                logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
-                sendSuccess = false;
-                socketClose(); // reconnect on next execution
-            }
-            return sendSuccess;
+    private boolean sendCubeCommand(CubeCommand command, int timeout) {
+        MaxCubeConnection connection = this.connection;
+        if (connection == null) {
+            return false;
         }
+        try {
+            connection.send(command, timeout);
+            return true;
+        } catch (ConnectException e) {
+            logger.debug("Connection timed out on {} port {}", ipAddress, port);
+        } catch (UnknownHostException e) {
+            logger.debug("Host error occurred during execution: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.debug("IO error occurred during execution: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
+            connection.close(); // reconnect on next execution
+        }
+        return false;
     }
 
     /**
-     * Read line from the Cube and process the message.
+     * Process a line read from the Cube.
      *
-     * @param terminator String with ending messagetype e.g. L:
-     * @throws IOException
+     * @param raw the line
      */
-    private void readliness(String terminator) throws IOException {
-        if (terminator == null) {
-            return;
-        }
-        boolean cont = true;
-        while (cont) {
-            String raw = reader.readLine();
-            if (raw != null) {
-                logger.trace("message block: '{}'", raw);
-                try {
-                    this.messageProcessor.addReceivedLine(raw);
-                    if (this.messageProcessor.isMessageAvailable()) {
-                        Message message = this.messageProcessor.pull();
-                        processMessage(message);
+    private void processLine(String raw) {
+        try {
+            this.messageProcessor.addReceivedLine(raw);
+            if (this.messageProcessor.isMessageAvailable()) {
+                Message message = this.messageProcessor.pull();
+                processMessage(message);
 
-                    }
-                } catch (UnprocessableMessageException e) {
-                    if (raw.contentEquals("M:")) {
-                        logger.info("No Rooms information found. Configure your MAX! Cube: {}", ipAddress);
-                        this.messageProcessor.reset();
-                    } else {
-                        logger.info("Message could not be processed: '{}' from MAX! Cube lan gateway: {}:", raw,
-                                ipAddress);
-                        this.messageProcessor.reset();
-                    }
-                } catch (Exception e) {
-                    logger.info("Error while handling message block: '{}' from MAX! Cube lan gateway: {}:", raw,
-                            ipAddress, e.getMessage(), e);
-                    this.messageProcessor.reset();
-                }
-                if (terminator == null || raw.startsWith(terminator)) {
-                    cont = false;
-                }
+            }
+        } catch (UnprocessableMessageException e) {
+            if (raw.contentEquals("M:")) {
+                logger.info("No Rooms information found. Configure your MAX! Cube: {}", ipAddress);
+                this.messageProcessor.reset();
             } else {
-                cont = false;
+                logger.info("Message could not be processed: '{}' from MAX! Cube lan gateway: {}:", raw, ipAddress);
+                this.messageProcessor.reset();
             }
+        } catch (Exception e) {
+            logger.info("Error while handling message block: '{}' from MAX! Cube lan gateway: {}:", raw, ipAddress,
+                    e.getMessage(), e);
+            this.messageProcessor.reset();
         }
     }
 
@@ -565,7 +541,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      * @param Message
      *            the decoded message data
      */
-    private void processMessage(Message message) {
+    private synchronized void processMessage(Message message) {
 
         if (message != null) {
             message.debug(logger);
@@ -651,7 +627,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
                     }
                 }
             } else if (message.getType() == MessageType.L) {
-                ((L_Message) message).updateDevices(devices, configurations);
+                changedDevices.addAll(((L_Message) message).updateDevices(devices, configurations));
                 logger.trace("{} devices found.", devices.size());
             } else if (message.getType() == MessageType.S) {
                 dutyCycle = ((S_Message) message).getDutyCycle();
@@ -911,22 +887,10 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     }
 
-    private boolean socketConnect() throws UnknownHostException, IOException {
-        socket = new Socket(ipAddress, port);
-        socket.setSoTimeout((NETWORK_TIMEOUT));
-        logger.debug("Open new connection... to {} port {}", ipAddress, port);
-        reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        writer = new OutputStreamWriter(socket.getOutputStream());
-        requestCount = 0;
-        return true;
-    }
-
     private void socketClose() {
-        try {
-            socket.close();
-        } catch (Exception e) {
+        if (connection != null) {
+            connection.dispose();
         }
-        socket = null;
     }
 
     private void updateCubeState() {
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.max.internal.handler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.openhab.binding.max.internal.command.CubeCommand;
+import org.openhab.binding.max.internal.command.L_Command;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MaxCubeConnection} is the TCP connection to a single MAX! Cube. Commands are written by a
+ * single writer thread in the order they are sent, the sender waits until the response of the Cube
+ * was received. All lines read from the Cube are handed over to a {@link LineListener}.
+ *
+ * In exclusive mode the connection is kept open between the commands and a dedicated reader thread
+ * reads the lines of the Cube as they arrive. Otherwise the connection is closed after each command
+ * to allow other applications to connect to the Cube, the writer thread then reads the lines itself
+ * until the response was received.
+ *
+ * @author agent - Initial contribution
+ */
+public class MaxCubeConnection {
+
+    /**
+     * Receives the lines read from the MAX! Cube.
+     */
+    public interface LineListener {
+        void onLineReceived(String line);
+    }
+
+    /** The Cube sends its full state ending with the L message after connecting */
+    private static final String INITIAL_RESPONSE = "L:";
+
+    private Logger logger = LoggerFactory.getLogger(MaxCubeConnection.class);
+
+    private final String ipAddress;
+    private final int port;
+    private final int timeout;
+    private final boolean exclusive;
+    private final int maxRequestsPerConnection;
+    private final LineListener lineListener;
+
+    /** writes the commands one after another, in the order they are sent */
+    private final ExecutorService commandWriter;
+
+    /** guards expectedResponse and responseReceived */
+    private final Object responseLock = new Object();
+    private String expectedResponse;
+    private boolean responseReceived;
+
+    private volatile Socket socket;
+    private Writer writer;
+    // reads the lines of the Cube on the writer thread, only in non-exclusive mode
+    private BufferedReader reader;
+    private int requestCount;
+
+    public MaxCubeConnection(String ipAddress, int port, int timeout, boolean exclusive, int maxRequestsPerConnection,
+            LineListener lineListener) {
+        this.ipAddress = ipAddress;
+        this.port = port;
+        this.timeout = timeout;
+        this.exclusive = exclusive;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        this.lineListener = lineListener;
+        commandWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MAX! Cube writer " + ipAddress);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isConnected() {
+        Socket socket = this.socket;
+        return socket != null && !socket.isClosed();
+    }
+
+    /**
+     * Sends the command to the MAX! Cube and waits for the response.
+     *
+     * @param command the {@link CubeCommand} to send
+     * @param responseTimeout the time in milliseconds to wait for the response
+     * @throws IOException if the command could not be sent or the response was not received in time
+     */
+    public void send(CubeCommand command, int responseTimeout) throws IOException {
+        Future<?> result;
+        try {
+            result = commandWriter.submit(() -> {
+                write(command, responseTimeout);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Connection to MAX! Cube disposed");
+        }
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending to MAX! Cube");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void write(CubeCommand command, int responseTimeout) throws IOException {
+        try {
+            boolean connected = false;
+            if (!isConnected()) {
+                connect();
+                connected = true;
+            } else if (maxRequestsPerConnection > 0 && requestCount >= maxRequestsPerConnection) {
+                logger.debug("maxRequestsPerConnection reached, reconnecting.");
+                close();
+                connect();
+                connected = true;
+            }
+
+            // The data sent by the Cube after connecting already contains the L message
+            if (!(connected && command instanceof L_Command)) {
+                logger.debug("Sending request #{} to MAX! Cube", requestCount);
+                String response = command.getReturnStrings();
+                expectResponse(response);
+
+                writer.write(command.getCommandString());
+                logger.trace("Write string to Max! Cube {}: {}", ipAddress, command.getCommandString());
+                writer.flush();
+
+                if (response != null) {
+                    awaitResponse(response, responseTimeout);
+                } else {
+                    close();
+                }
+            }
+            requestCount++;
+
+            if (!exclusive) {
+                close();
+            }
+        } catch (IOException e) {
+            close(); // reconnect on next execution
+            throw e;
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(ipAddress, port), timeout);
+        logger.debug("Open new connection... to {} port {}", ipAddress, port);
+        writer = new OutputStreamWriter(socket.getOutputStream());
+        requestCount = 0;
+        expectResponse(INITIAL_RESPONSE);
+        this.socket = socket;
+
+        if (exclusive) {
+            Thread readerThread = new Thread(() -> read(socket), "MAX! Cube reader " + ipAddress);
+            readerThread.setDaemon(true);
+            readerThread.start();
+        } else {
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        logger.debug("Connect to MAX! Cube");
+        awaitResponse(INITIAL_RESPONSE, timeout);
+    }
+
+    /**
+     * Closes the connection and stops the writer thread, commands sent afterwards fail.
+     */
+    public void dispose() {
+        commandWriter.shutdownNow();
+        close();
+    }
+
+    /**
+     * Closes the connection, the reader thread terminates as soon as the socket is closed.
+     */
+    public void close() {
+        Socket socket = this.socket;
+        this.socket = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        synchronized (responseLock) {
+            responseLock.notifyAll();
+        }
+    }
+
+    private void expectResponse(String response) {
+        synchronized (responseLock) {
+            expectedResponse = response;
+            responseReceived = false;
+        }
+    }
+
+    private void awaitResponse(String response, int responseTimeout) throws IOException {
+        if (!exclusive) {
+            readResponse(response, responseTimeout);
+            return;
+        }
+        long deadline = System.currentTimeMillis() + responseTimeout;
+        synchronized (responseLock) {
+            while (!responseReceived) {
+                if (!isConnected()) {
+                    throw new IOException("Connection to MAX! Cube closed");
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("No '" + response + "' response received from MAX! Cube");
+                }
+                try {
+                    responseLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for MAX! Cube");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of the Cube on the writer thread until the response was received.
+     */
+    private void readResponse(String response, int responseTimeout) throws IOException {
+        Socket socket = this.socket;
+        if (socket == null) {
+            throw new IOException("Connection to MAX! Cube closed");
+        }
+        socket.setSoTimeout(responseTimeout);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            logger.trace("message block: '{}'", line);
+            lineListener.onLineReceived(line);
+            if (line.startsWith(response)) {
+                expectResponse(null);
+                return;
+            }
+        }
+        throw new IOException("Connection to MAX! Cube closed");
+    }
+
+    private void read(Socket socket) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logger.trace("message block: '{}'", line);
+                lineListener.onLineReceived(line);
+
+                synchronized (responseLock) {
+                    if (socket == this.socket && expectedResponse != null && line.startsWith(expectedResponse)) {
+                        expectedResponse = null;
+                        responseReceived = true;
+                        responseLock.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                logger.debug("IO error occurred while reading from MAX! Cube {}: {}", ipAddress, e.getMessage());
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            synchronized (responseLock) {
+                responseLock.notifyAll();
+            }
+        }
+    }
+}
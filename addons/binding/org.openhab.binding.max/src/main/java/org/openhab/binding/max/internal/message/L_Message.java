@@ -9,11 +9,11 @@
 package org.openhab.binding.max.internal.message;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.net.util.Base64;
-import org.openhab.binding.max.internal.Utils;
 import org.openhab.binding.max.internal.device.Device;
 import org.openhab.binding.max.internal.device.DeviceConfiguration;
 import org.slf4j.Logger;
@@ -51,38 +51,70 @@ public final class L_Message extends Message {
         return devices;
     }
 
+    /**
+     * Updates the devices with the real time information of the L message. The status bytes of a known device
+     * are compared in place with the ones of the last L message, only devices whose status changed are decoded.
+     * Devices not known yet are created.
+     *
+     * @return the devices which were created or whose status changed
+     */
     public Collection<? extends Device> updateDevices(List<Device> devices, List<DeviceConfiguration> configurations) {
 
+        List<Device> changedDevices = new ArrayList<Device>();
+
         byte[] decodedRawMessage = Base64.decodeBase64(getPayload().getBytes());
 
         MaxTokenizer tokenizer = new MaxTokenizer(decodedRawMessage);
 
         while (tokenizer.hasMoreElements()) {
-            byte[] token = tokenizer.nextElement();
-            String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
-            // logger.debug("token: "+token+" rfaddress: "+rfAddress);
-
-            Device foundDevice = null;
-            for (Device device : devices) {
-                // logger.debug(device.getRFAddress().toUpperCase()+ " vs "+rfAddress);
-                if (device.getRFAddress().toUpperCase().equals(rfAddress)) {
-                    // logger.debug("Updating device..."+rfAddress);
-                    foundDevice = device;
-                }
+            int offset = tokenizer.nextOffset();
+            int length = tokenizer.getTokenLength();
+            if (length == 0) {
+                continue;
             }
-            if (foundDevice != null) {
-                foundDevice = Device.update(token, configurations, foundDevice);
-                // devices.remove(token);
-                // devices.add(foundDevice);
-            } else {
+
+            Device foundDevice = findDevice(devices, decodedRawMessage, offset);
+            if (foundDevice == null) {
+                byte[] token = Arrays.copyOfRange(decodedRawMessage, offset, offset + length);
                 Device tempDevice = Device.create(token, configurations);
                 if (tempDevice != null) {
                     devices.add(tempDevice);
+                    changedDevices.add(tempDevice);
                 }
+            } else if (foundDevice.isRawStatusChanged(decodedRawMessage, offset, length)) {
+                byte[] token = Arrays.copyOfRange(decodedRawMessage, offset, offset + length);
+                Device.update(token, configurations, foundDevice);
+                changedDevices.add(foundDevice);
             }
         }
 
-        return devices;
+        return changedDevices;
+    }
+
+    /**
+     * Finds the device with the RF address at the offset of the buffer, without decoding the address into a string.
+     */
+    private Device findDevice(List<Device> devices, byte[] buffer, int offset) {
+        for (Device device : devices) {
+            if (isRFAddress(device.getRFAddress(), buffer, offset)) {
+                return device;
+            }
+        }
+        return null;
+    }
+
+    private boolean isRFAddress(String rfAddress, byte[] buffer, int offset) {
+        if (rfAddress == null || rfAddress.length() != 6) {
+            return false;
+        }
+        for (int i = 0; i < 3; i++) {
+            int high = Character.digit(rfAddress.charAt(i * 2), 16);
+            int low = Character.digit(rfAddress.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0 || ((high << 4) | low) != (buffer[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
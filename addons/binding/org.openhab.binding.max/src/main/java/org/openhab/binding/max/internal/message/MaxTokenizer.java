@@ -8,6 +8,7 @@
  */
 package org.openhab.binding.max.internal.message;
 
+import java.util.Arrays;
 import java.util.Enumeration;
 
 /**
@@ -16,7 +17,8 @@ import java.util.Enumeration;
  * The MaxTokenzier starts with the first device and chops off one device after another from the byte stream.
  *
  * The tokens returned consist of the payload solely, and do not contain the first byte holding the
- * tokens length.
+ * tokens length. {@link #nextOffset()} moves to the next token without copying it, the token is then
+ * read in place from the decoded message.
  *
  * @author Andreas Heil (info@aheil.de)
  * @since 1.4.0
@@ -25,6 +27,8 @@ public final class MaxTokenizer implements Enumeration<byte[]> {
 
     private int offset = 0;
 
+    private int tokenLength = 0;
+
     private byte[] decodedRawMessage = null;
 
     /**
@@ -44,15 +48,30 @@ public final class MaxTokenizer implements Enumeration<byte[]> {
 
     @Override
     public byte[] nextElement() {
-        byte length = decodedRawMessage[offset++];
+        int tokenOffset = nextOffset();
+        return Arrays.copyOfRange(decodedRawMessage, tokenOffset, tokenOffset + tokenLength);
+    }
 
+    /**
+     * Moves to the next token without copying it.
+     *
+     * @return the offset of the token within the decoded message
+     */
+    public int nextOffset() {
         // make sure to get the correct length in case > 127
-        byte[] token = new byte[length & 0xFF];
-
-        for (int i = 0; i < (length & 0xFF); i++) {
-            token[i] = decodedRawMessage[offset++];
+        tokenLength = decodedRawMessage[offset++] & 0xFF;
+        int tokenOffset = offset;
+        offset += tokenLength;
+        if (offset > decodedRawMessage.length) {
+            throw new ArrayIndexOutOfBoundsException(offset - 1);
         }
+        return tokenOffset;
+    }
 
-        return token;
+    /**
+     * @return the length of the token returned by the last call of {@link #nextOffset()}
+     */
+    public int getTokenLength() {
+        return tokenLength;
     }
 }
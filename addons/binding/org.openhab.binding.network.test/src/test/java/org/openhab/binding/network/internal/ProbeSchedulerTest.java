@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see ProbeScheduler}
+ *
+ * @author agent - Initial contribution
+ */
+public class ProbeSchedulerTest {
+    @Test
+    public void perHostLimitTest() throws InterruptedException {
+        ProbeScheduler subject = new ProbeScheduler(4, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 3; ++i) {
+            subject.submit("127.0.0.1", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        // Only one probe of the host is allowed to run, the other two are waiting
+        assertThat(subject.getQueueDepth(), is(2));
+        release.countDown();
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        assertThat(maxRunning.get(), is(1));
+        assertThat(subject.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void cancelWaitingProbeTest() throws InterruptedException {
+        ProbeScheduler subject = new ProbeScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+
+        subject.submit("127.0.0.1", () -> {
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            executed.incrementAndGet();
+        });
+        Future<?> waiting = subject.submit("127.0.0.1", () -> executed.incrementAndGet());
+        subject.submit("127.0.0.1", () -> finished.countDown());
+
+        waiting.cancel(true);
+        release.countDown();
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        assertThat(executed.get(), is(1));
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.openhab.binding.network.internal.RefreshTicker.Registration;
+import org.openhab.binding.network.internal.utils.BatchProber.BatchTool;
+import org.openhab.binding.network.internal.utils.FakeBatchProber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests cases for {@see RefreshTicker}
+ *
+ * @author agent - Initial contribution
+ */
+public class RefreshTickerTest {
+    private final Logger logger = LoggerFactory.getLogger(RefreshTickerTest.class);
+
+    @Test
+    public void alignedRefreshTest() {
+        RefreshTicker subject = new RefreshTicker();
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+
+        // Registered at different times, the first refresh happens on the next tick
+        subject.register(first::incrementAndGet, 10000, 1200);
+        subject.tick(2000);
+        subject.register(second::incrementAndGet, 10000, 7300);
+        subject.tick(8000);
+        assertThat(first.get(), is(1));
+        assertThat(second.get(), is(1));
+
+        // From then on both are refreshed together on multiples of the interval
+        for (long now = 9000; now <= 30000; now += RefreshTicker.TICK_IN_MS) {
+            subject.tick(now);
+        }
+        assertThat(first.get(), is(4));
+        assertThat(second.get(), is(4));
+    }
+
+    @Test
+    public void cancelTest() {
+        RefreshTicker subject = new RefreshTicker();
+        AtomicInteger refreshes = new AtomicInteger();
+
+        Registration registration = subject.register(refreshes::incrementAndGet, 10000, 0);
+        subject.tick(0);
+        registration.cancel();
+        subject.tick(10000);
+
+        assertThat(refreshes.get(), is(1));
+        assertThat(subject.getRegistrations(), is(0));
+    }
+
+    /**
+     * 200 things with a refresh interval of one minute are initialized at random times within the first minute,
+     * which is what happens at startup. Without the shared tick, every thing refreshes with its own phase and
+     * the batch time window almost never contains a second ping, so every refresh spawns a process. With the
+     * shared tick, the refreshes are aligned after the first one and all pings of a minute share one process.
+     */
+    @Test
+    public void processesPerMinuteTest() throws Exception {
+        final int hosts = 200;
+        final long interval = 60000;
+        final int minutes = 10;
+        RefreshTicker subject = new RefreshTicker();
+        FakeBatchProber prober = new FakeBatchProber(BatchTool.FPING);
+        List<CompletableFuture<Boolean>> pings = new ArrayList<>();
+
+        Random random = new Random(4711);
+        long[] initializedAt = new long[hosts];
+        for (int i = 0; i < hosts; ++i) {
+            initializedAt[i] = random.nextInt((int) (interval - RefreshTicker.TICK_IN_MS));
+        }
+
+        int[] processesPerMinute = new int[minutes];
+        for (long now = 0; now < minutes * interval; now += RefreshTicker.TICK_IN_MS) {
+            for (int i = 0; i < hosts; ++i) {
+                if (initializedAt[i] > now - RefreshTicker.TICK_IN_MS && initializedAt[i] <= now) {
+                    final String host = "10.0." + (i / 100) + "." + (i % 100);
+                    subject.register(() -> pings.add(prober.ping(host, 500)), interval, initializedAt[i]);
+                }
+            }
+            int processesBefore = prober.commands.size();
+            subject.tick(now);
+            for (CompletableFuture<Boolean> ping : pings) {
+                ping.get(2, TimeUnit.SECONDS);
+            }
+            processesPerMinute[(int) (now / interval)] += prober.commands.size() - processesBefore;
+        }
+
+        int processes = prober.commands.size();
+        logger.info("{} pings of {} hosts within {} minutes needed {} processes, {} per minute after startup",
+                pings.size(), hosts, minutes, processes, processesPerMinute[minutes - 1]);
+
+        assertThat(pings.size(), is(hosts * minutes));
+        // Startup: at most one process per tick of the first minute
+        assertTrue(processesPerMinute[0] <= interval / RefreshTicker.TICK_IN_MS);
+        // Afterwards a single process per minute instead of one per host
+        for (int minute = 1; minute < minutes; ++minute) {
+            assertThat(processesPerMinute[minute], is(1));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.binding.network.internal.utils.BatchProber.BatchTool;
+
+/**
+ * Tests cases for {@see BatchProber}
+ *
+ * @author agent - Initial contribution
+ */
+public class BatchProberTest {
+    private void batchTest(BatchTool tool) throws Exception {
+        FakeBatchProber subject = new FakeBatchProber(tool);
+
+        // 200 hosts within the batch window need a single process instead of 200 processes
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            results.add(subject.ping("10.0." + (i / 100) + "." + (i % 100), 500));
+        }
+        for (int i = 0; i < 200; ++i) {
+            assertThat(results.get(i).get(2, TimeUnit.SECONDS), is(i % 2 == 0));
+        }
+        assertThat(subject.commands.size(), is(1));
+        assertThat(subject.commands.get(0), hasItem("500"));
+    }
+
+    @Test
+    public void fpingBatchTest() throws Exception {
+        batchTest(BatchTool.FPING);
+    }
+
+    @Test
+    public void arpScanBatchTest() throws Exception {
+        batchTest(BatchTool.ARP_SCAN);
+    }
+
+    @Test
+    public void parseTest() {
+        BatchProber fping = new BatchProber(BatchTool.FPING, "fping", null);
+        assertThat(fping.parseReachableHost("192.168.0.1 is alive"), is("192.168.0.1"));
+        assertThat(fping.parseReachableHost("192.168.0.1 is alive (0.10 ms)"), is("192.168.0.1"));
+        assertThat(fping.parseReachableHost("192.168.0.2 is unreachable"), is(nullValue()));
+
+        BatchProber arpScan = new BatchProber(BatchTool.ARP_SCAN, "arp-scan", "eth0");
+        assertThat(arpScan.parseReachableHost("192.168.0.1\t00:11:22:33:44:55"), is("192.168.0.1"));
+        assertThat(arpScan.parseReachableHost("Interface: eth0, datalink type: EN10MB"), is(nullValue()));
+    }
+}
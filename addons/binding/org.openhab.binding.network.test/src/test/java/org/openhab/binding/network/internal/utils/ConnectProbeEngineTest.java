@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see ConnectProbeEngine}
+ *
+ * @author agent - Initial contribution
+ */
+public class ConnectProbeEngineTest {
+    @Test
+    public void openPortTest() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            CompletableFuture<Boolean> result = ConnectProbeEngine.getInstance()
+                    .probe(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), 1000);
+            assertThat(result.get(2, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    @Test
+    public void refusedPortTest() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        // A refused connection still means that there is a device
+        CompletableFuture<Boolean> result = ConnectProbeEngine.getInstance()
+                .probe(new InetSocketAddress("127.0.0.1", port), 1000);
+        assertThat(result.get(2, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void unresolvedAddressTest() throws Exception {
+        CompletableFuture<Boolean> result = ConnectProbeEngine.getInstance()
+                .probe(InetSocketAddress.createUnresolved("unknown.invalid", 80), 1000);
+        assertThat(result.get(2, TimeUnit.SECONDS), is(false));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch prober for tests that does not spawn processes, but records the commands and reports every
+ * host of the 10.0.0.0/16 network with an even last address byte as alive.
+ *
+ * @author agent - Initial contribution
+ */
+public class FakeBatchProber extends BatchProber {
+    /**
+     * A fake process that prints the given output and terminates.
+     */
+    private static class FakeProcess extends Process {
+        final InputStream output;
+
+        FakeProcess(String output) {
+            this.output = new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    public final List<List<String>> commands = Collections.synchronizedList(new ArrayList<>());
+
+    public FakeBatchProber(BatchTool tool) {
+        super(tool, "tool", "eth0");
+    }
+
+    @Override
+    Process startProcess(List<String> command) throws IOException {
+        commands.add(command);
+        StringBuilder output = new StringBuilder();
+        for (String host : command) {
+            if (!host.startsWith("10.0.")) {
+                continue;
+            }
+            boolean alive = Integer.parseInt(host.substring(host.lastIndexOf('.') + 1)) % 2 == 0;
+            if (getTool() == BatchTool.FPING) {
+                output.append(host).append(alive ? " is alive\n" : " is unreachable\n");
+            } else if (alive) {
+                output.append(host).append("\t00:11:22:33:44:55\n");
+            }
+        }
+        return new FakeProcess(output.toString());
+    }
+}
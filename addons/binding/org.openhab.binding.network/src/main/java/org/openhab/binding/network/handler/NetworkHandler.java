@@ -177,6 +177,8 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
             presenceDetection.setUseDhcpSniffing(configuration.allowDHCPlisten);
             presenceDetection.setUseIcmpPing(configuration.allowSystemPings);
             presenceDetection.setUseArpPing(true, configuration.arpPingToolPath);
+            presenceDetection.setUseBatchPing(configuration.fpingToolPath);
+            presenceDetection.setUseBatchArpPing(configuration.arpScanToolPath);
         }
 
         this.retries = handlerConfiguration.retry.intValue();
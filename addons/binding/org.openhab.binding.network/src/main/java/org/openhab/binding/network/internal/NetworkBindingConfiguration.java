@@ -23,11 +23,19 @@ public class NetworkBindingConfiguration {
     public Boolean allowDHCPlisten = true;
     public BigDecimal cacheDeviceStateTimeInMS = BigDecimal.valueOf(2000);
     public String arpPingToolPath = "arping";
+    public String fpingToolPath = "fping";
+    public String arpScanToolPath = "";
+    public BigDecimal probeThreads = BigDecimal.valueOf(ProbeScheduler.DEFAULT_THREADS);
+    public BigDecimal maxProbesPerHost = BigDecimal.valueOf(ProbeScheduler.DEFAULT_PROBES_PER_HOST);
 
     public void update(@NonNull NetworkBindingConfiguration newConfiguration) {
         this.allowSystemPings = newConfiguration.allowSystemPings;
         this.allowDHCPlisten = newConfiguration.allowDHCPlisten;
         this.cacheDeviceStateTimeInMS = newConfiguration.cacheDeviceStateTimeInMS;
         this.arpPingToolPath = newConfiguration.arpPingToolPath;
+        this.fpingToolPath = newConfiguration.fpingToolPath;
+        this.arpScanToolPath = newConfiguration.arpScanToolPath;
+        this.probeThreads = newConfiguration.probeThreads;
+        this.maxProbesPerHost = newConfiguration.maxProbesPerHost;
     }
 }
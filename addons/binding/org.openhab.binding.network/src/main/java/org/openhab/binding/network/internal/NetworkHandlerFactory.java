@@ -20,6 +20,7 @@ import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
 import org.openhab.binding.network.handler.NetworkHandler;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -61,6 +62,10 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
         // configuration, the values are automatically available in all handlers. Because they all
         // share the same instance.
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
+        // Tool paths might have changed
+        NetworkUtils.clearFeatureTests();
+        ProbeScheduler.getInstance().configure(configuration.probeThreads.intValue(),
+                configuration.maxProbesPerHost.intValue());
     }
 
     @Override
@@ -13,18 +13,22 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.network.internal.dhcp.DHCPListenService;
 import org.openhab.binding.network.internal.dhcp.IPRequestReceivedCallback;
+import org.openhab.binding.network.internal.utils.BatchProber;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
 import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
@@ -41,12 +45,15 @@ import org.slf4j.LoggerFactory;
 public class PresenceDetection implements IPRequestReceivedCallback {
     public static final double NOT_REACHABLE = -1;
     NetworkUtils networkUtils = new NetworkUtils();
+    ProbeScheduler probeScheduler = ProbeScheduler.getInstance();
     private Logger logger = LoggerFactory.getLogger(PresenceDetection.class);
 
     /// Configuration variables
     private boolean useDHCPsniffing = false;
     private ArpPingUtilEnum arpPingMethod = null;
     private String arpPingUtilPath = "arping";
+    private String arpScanToolPath = null;
+    private BatchProber batchPing = null;
     private IpPingMethodEnum pingMethod = null;
     private boolean iosDevice;
     private Set<Integer> tcpPorts = new HashSet<Integer>();
@@ -60,9 +67,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /// State variables (cannot be final because of test dependency injections)
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
-    private ScheduledFuture<?> refreshJob;
+    private RefreshTicker.Registration refreshJob;
     private InetAddress destination;
-    ExecutorService executorService;
+    List<Future<?>> detectionFutures;
+    private CountDownLatch detectionFinished;
     private String dhcpState = "off";
     Integer currentCheck = 0;
     int detectionChecks;
@@ -156,6 +164,34 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         arpPingMethod = networkUtils.determineNativeARPpingMethod(arpPingUtilPath);
     }
 
+    /**
+     * Enables or disables batched ICMP pings with the fping utility. Batched pings are used instead of
+     * the native system ping if the feature test for fping succeeds and system pings are enabled.
+     *
+     * @param fpingToolPath The file path to the fping utility. Null or blank to disable batched pings.
+     */
+    public void setUseBatchPing(String fpingToolPath) {
+        batchPing = networkUtils.determineBatchPing(fpingToolPath);
+    }
+
+    /**
+     * Enables or disables batched ARP pings with the arp-scan utility. Batched ARP pings are used instead of
+     * the arping utility if the feature test for arp-scan succeeds and ARP pings are enabled.
+     *
+     * @param arpScanToolPath The file path to the arp-scan utility. Null or blank to disable batched ARP pings.
+     */
+    public void setUseBatchArpPing(String arpScanToolPath) {
+        this.arpScanToolPath = networkUtils.determineBatchArpPing(arpScanToolPath) ? arpScanToolPath : null;
+    }
+
+    public BatchProber getBatchPing() {
+        return batchPing;
+    }
+
+    public boolean isBatchArpPing() {
+        return arpScanToolPath != null;
+    }
+
     public ArpPingUtilEnum arpPingMethod() {
         return arpPingMethod;
     }
@@ -202,14 +238,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
-    }
-
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. All checks are submitted to the binding wide
+     * {@link ProbeScheduler} and are executed as soon as a probe thread is available.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -223,65 +255,73 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
-
-        if (!cache.isExpired()) {
-            return false;
-        }
+        synchronized (this) {
+            if (detectionFutures != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != null) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
-        }
+            Set<String> interfaceNames = null;
 
-        if (detectionChecks == 0) {
-            return false;
-        }
+            currentCheck = 0;
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod != null) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
 
-        executorService = getThreadsFor(detectionChecks);
+            if (detectionChecks == 0) {
+                return false;
+            }
 
-        for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
-        }
+            // Probes call the synchronized checkIfFinished(), so they cannot finish the detection
+            // before all of them are submitted.
+            final List<Future<?>> futures = new ArrayList<>(detectionChecks);
+            detectionFutures = futures;
+            detectionFinished = new CountDownLatch(1);
+            final String host = destination.getHostAddress();
 
-        // ARP ping for IPv4 addresses. Use an own executor for each network interface
-        if (interfaceNames != null) {
-            for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
-                    checkIfFinished();
-                });
+            // TCP connection attempts are non-blocking and do not occupy a probe thread
+            for (Integer tcpPort : tcpPorts) {
+                addAsyncCheck(futures, performServicePing(tcpPort));
             }
-        }
 
-        // ICMP ping
-        if (pingMethod != null) {
-            executorService.execute(() -> {
-                if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
-                } else {
-                    performJavaPing();
+            // ARP ping for IPv4 addresses. Use an own probe for each network interface
+            if (interfaceNames != null) {
+                for (final String interfaceName : interfaceNames) {
+                    if (arpScanToolPath != null) {
+                        addAsyncCheck(futures, performBatchARPping(interfaceName));
+                        continue;
+                    }
+                    futures.add(probeScheduler.submit(host, () -> {
+                        performARPping(interfaceName);
+                        checkIfFinished();
+                    }));
                 }
-                checkIfFinished();
-            });
+            }
+
+            // ICMP ping
+            if (pingMethod != null && pingMethod != IpPingMethodEnum.JAVA_PING && batchPing != null) {
+                addAsyncCheck(futures, performBatchPing());
+            } else if (pingMethod != null) {
+                futures.add(probeScheduler.submit(host, () -> {
+                    if (pingMethod != IpPingMethodEnum.JAVA_PING) {
+                        performSystemPing();
+                    } else {
+                        performJavaPing();
+                    }
+                    checkIfFinished();
+                }));
+            }
         }
 
         if (waitForDetectionToFinish) {
@@ -291,21 +331,32 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return true;
     }
 
+    /**
+     * Adds a check that does not occupy a probe thread to the current detection process.
+     * The check counts as finished as soon as the future completes.
+     */
+    private void addAsyncCheck(List<Future<?>> futures, CompletableFuture<?> check) {
+        futures.add(check);
+        check.whenComplete((result, e) -> {
+            if (!check.isCancelled()) {
+                checkIfFinished();
+            }
+        });
+    }
+
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished and all remaining probes are
+     * cancelled.
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
-        if (executorService == null) {
+        if (detectionFutures == null) {
             return;
         }
         // Finish the detection process
-        executorService.shutdownNow();
-        executorService = null;
-        detectionChecks = 0;
+        cancelProbes();
 
         PresenceDetectionValue v;
 
@@ -337,21 +388,47 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Cancels all probes of the current detection process and resets the detection state.
+     */
+    private synchronized void cancelProbes() {
+        if (detectionFutures == null) {
+            return;
+        }
+        for (Future<?> future : detectionFutures) {
+            future.cancel(true);
+        }
+        detectionFutures = null;
+        detectionChecks = 0;
+        detectionFinished.countDown();
+        detectionFinished = null;
+    }
+
+    /**
+     * Aborts an ongoing presence detection without submitting a final result.
+     */
+    public void cancelPresenceDetection() {
+        cancelProbes();
+    }
+
+    /**
+     * Waits for the presence detection probes to finish. Returns immediately
      * if no presence detection is performed right now.
      */
     public void waitForPresenceDetection() {
-        if (executorService == null) {
+        final CountDownLatch latch;
+        synchronized (this) {
+            latch = detectionFinished;
+        }
+        if (latch == null) {
             return;
         }
         try {
             // We may get interrupted here by cancelRefreshJob().
-            executorService.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
+            latch.await(timeoutInMS + 100, TimeUnit.MILLISECONDS);
             submitFinalResult();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            executorService.shutdownNow();
-            executorService = null;
+            cancelProbes();
         }
     }
 
@@ -380,20 +457,85 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
-    protected void performServicePing(int tcpPort) {
-        logger.trace("Perform TCP presence detection for {} on port", hostname, tcpPorts);
-        try {
-            double pingTime = System.nanoTime();
-            if (networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS)) {
+    /**
+     * Performs a non-blocking TCP connection attempt to the given port.
+     *
+     * @param tcpPort The TCP port
+     * @return A future that completes as soon as the connection attempt finished and the
+     *         partial result has been reported. Cancelling it aborts the connection attempt.
+     */
+    protected CompletableFuture<?> performServicePing(int tcpPort) {
+        logger.trace("Perform TCP presence detection for {} on port {}", hostname, tcpPort);
+        return reportAsyncResult(networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS),
+                PresenceDetectionType.TCP_CONNECTION, v -> v.addReachableTcpService(tcpPort));
+    }
+
+    /**
+     * Performs an ICMP ping that is batched together with the pings of other hosts.
+     *
+     * @return A future that completes as soon as the ping finished and the partial result has been reported.
+     */
+    protected CompletableFuture<?> performBatchPing() {
+        logger.trace("Perform batched native ping presence detection for {}", hostname);
+        return reportAsyncResult(batchPing.ping(destination.getHostAddress(), timeoutInMS),
+                PresenceDetectionType.ICMP_PING, null);
+    }
+
+    /**
+     * Performs an ARP ping on the given interface that is batched together with the ARP pings of other hosts.
+     * If it is an iOS device, the {@see NetworkUtils.wakeUpIOS()} method is called before. The batch time window
+     * gives the device time to wake up.
+     *
+     * @param interfaceName The interface name.
+     * @return A future that completes as soon as the ARP ping finished and the partial result has been reported.
+     */
+    protected CompletableFuture<?> performBatchARPping(String interfaceName) {
+        logger.trace("Perform batched ARP ping presence detection for {} on interface {}", hostname, interfaceName);
+        if (iosDevice) {
+            try {
+                networkUtils.wakeUpIOS(destination);
+            } catch (IOException e) {
+                logger.trace("Failed to wake up iOS device {}", hostname, e);
+            }
+        }
+        return reportAsyncResult(BatchProber.getArpScan(arpScanToolPath, interfaceName)
+                .ping(destination.getHostAddress(), timeoutInMS), PresenceDetectionType.ARP_PING, null);
+    }
+
+    /**
+     * Reports a partial result as soon as the given asynchronous probe succeeded.
+     *
+     * @param probe The probe. Completes with true if the device is reachable.
+     * @param type The detection type
+     * @param reachableAction An optional action that is applied to the value before it is reported
+     * @return A future that completes after the result has been reported. Cancelling it cancels the probe.
+     */
+    private CompletableFuture<?> reportAsyncResult(CompletableFuture<Boolean> probe, PresenceDetectionType type,
+            Consumer<PresenceDetectionValue> reachableAction) {
+        final double pingTime = System.nanoTime();
+        final CompletableFuture<Void> result = probe.handle((reachable, e) -> {
+            if (e != null) {
+                if (!(e instanceof CancellationException)) {
+                    // This should not happen and might be a user configuration issue, we log a warning message
+                    // therefore.
+                    logger.warn("Could not perform {} presence detection for {}", type, hostname, e);
+                }
+            } else if (reachable) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
-                PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
-                v.addReachableTcpService(tcpPort);
+                PresenceDetectionValue v = updateReachableValue(type, latency);
+                if (reachableAction != null) {
+                    reachableAction.accept(v);
+                }
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            // This should not happen and might be a user configuration issue, we log a warning message therefore.
-            logger.warn("Could not create a socket connection", e);
-        }
+            return null;
+        });
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) {
+                probe.cancel(true);
+            }
+        });
+        return result;
     }
 
     /**
@@ -468,16 +610,18 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     }
 
     /**
-     * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
+     * Start/Restart the periodic update of the devices reach-ability state. The refreshes of all devices
+     * are performed on the ticks of the {@link RefreshTicker}, so that the batched pings of devices with the
+     * same refresh interval are sent together.
      *
-     * @param scheduledExecutorService A scheduler to run pings periodically.
+     * @param scheduledExecutorService A scheduler for the ticks, if they are not running already.
      */
     public void startAutomaticRefresh(ScheduledExecutorService scheduledExecutorService) {
-        if (refreshJob != null && !refreshJob.isDone()) {
-            refreshJob.cancel(true);
+        if (refreshJob != null) {
+            refreshJob.cancel();
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
-                refreshIntervalInMS, TimeUnit.MILLISECONDS);
+        refreshJob = RefreshTicker.getInstance().register(() -> performPresenceDetection(false),
+                refreshIntervalInMS, scheduledExecutorService);
 
         enableDHCPListen(useDHCPsniffing);
     }
@@ -493,8 +637,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * Stop automatic refreshing.
      */
     public void stopAutomaticRefresh() {
-        if (refreshJob != null && !refreshJob.isDone()) {
-            refreshJob.cancel(true);
+        if (refreshJob != null) {
+            refreshJob.cancel();
             refreshJob = null;
         }
         enableDHCPListen(false);
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A binding wide singleton that executes all presence probes (ICMP, ARP and TCP connection attempts)
+ * of all {@link PresenceDetection} instances and the discovery on one bounded thread pool.
+ *
+ * Probes are submitted per host. At most {@link #getMaxProbesPerHost()} probes of the same host are
+ * running at the same time, additional probes for that host wait in a per host queue and are handed
+ * over to the thread pool as soon as a running probe of that host finishes.
+ *
+ * The queue depth and the probe latency are recorded and can be requested for diagnostic purposes.
+ *
+ * @author agent - Initial contribution
+ */
+public class ProbeScheduler {
+    public static final int DEFAULT_THREADS = 16;
+    public static final int DEFAULT_PROBES_PER_HOST = 4;
+
+    private static ProbeScheduler instance;
+
+    private final Logger logger = LoggerFactory.getLogger(ProbeScheduler.class);
+    private final ThreadPoolExecutor executor;
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+    private volatile int maxProbesPerHost;
+
+    // Metrics
+    private final AtomicInteger waitingProbes = new AtomicInteger();
+    private final AtomicLong completedProbes = new AtomicLong();
+    private final AtomicLong probeTimeSumInNS = new AtomicLong();
+    private final AtomicLong maxProbeTimeInNS = new AtomicLong();
+
+    /**
+     * Probes of one host that are currently running or waiting for a free slot.
+     */
+    private static class HostQueue {
+        int running = 0;
+        final Deque<Runnable> waiting = new ArrayDeque<>();
+    }
+
+    ProbeScheduler(int threads, int maxProbesPerHost) {
+        this.maxProbesPerHost = maxProbesPerHost;
+        final AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "networkProbe-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Return the binding wide probe scheduler. It is created on first access.
+     */
+    public static synchronized ProbeScheduler getInstance() {
+        if (instance == null) {
+            instance = new ProbeScheduler(DEFAULT_THREADS, DEFAULT_PROBES_PER_HOST);
+        }
+        return instance;
+    }
+
+    /**
+     * Change the thread pool size and the per host in-flight limit. Already queued probes are not affected
+     * and run with the new limits.
+     *
+     * @param threads The maximum amount of concurrently running probes. Must be greater than 0.
+     * @param maxProbesPerHost The maximum amount of concurrently running probes for the same host. Must be greater
+     *            than 0.
+     */
+    public synchronized void configure(int threads, int maxProbesPerHost) {
+        if (threads < 1 || maxProbesPerHost < 1) {
+            throw new IllegalArgumentException("Thread count and probes per host must be positive");
+        }
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+        this.maxProbesPerHost = maxProbesPerHost;
+    }
+
+    /**
+     * Submit a probe for the given host. The probe is executed as soon as a thread is available and
+     * the per host in-flight limit allows it.
+     *
+     * @param host The host address or name. Used for the per host in-flight limit.
+     * @param probe The probe. Should honour the thread interrupt flag for cancellation.
+     * @return A future that can be used to cancel the probe.
+     */
+    public Future<?> submit(String host, Runnable probe) {
+        final FutureTask<?> task = new FutureTask<>(probe, null);
+        final Runnable wrapper = () -> {
+            // Probes that got cancelled while waiting only release their slot
+            final boolean cancelled = task.isCancelled();
+            final long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                if (!cancelled) {
+                    recordProbeTime(System.nanoTime() - start);
+                }
+                probeFinished(host);
+            }
+        };
+
+        synchronized (hostQueues) {
+            HostQueue hostQueue = hostQueues.computeIfAbsent(host, k -> new HostQueue());
+            if (hostQueue.running >= maxProbesPerHost) {
+                hostQueue.waiting.add(wrapper);
+                waitingProbes.incrementAndGet();
+                return task;
+            }
+            hostQueue.running++;
+        }
+        executor.execute(wrapper);
+        return task;
+    }
+
+    private void probeFinished(String host) {
+        Runnable next;
+        synchronized (hostQueues) {
+            HostQueue hostQueue = hostQueues.get(host);
+            if (hostQueue == null) {
+                return;
+            }
+            next = hostQueue.waiting.poll();
+            if (next == null) {
+                hostQueue.running--;
+                if (hostQueue.running <= 0) {
+                    hostQueues.remove(host);
+                }
+                return;
+            }
+            waitingProbes.decrementAndGet();
+        }
+        // The slot of the finished probe is handed over to the next waiting probe of the same host
+        executor.execute(next);
+    }
+
+    private void recordProbeTime(long timeInNS) {
+        completedProbes.incrementAndGet();
+        probeTimeSumInNS.addAndGet(timeInNS);
+        maxProbeTimeInNS.accumulateAndGet(timeInNS, Math::max);
+        logger.trace("Probe finished in {} ms. Queue depth: {}", TimeUnit.NANOSECONDS.toMillis(timeInNS),
+                getQueueDepth());
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getMaxProbesPerHost() {
+        return maxProbesPerHost;
+    }
+
+    /**
+     * Return the amount of probes that are waiting, either for a free thread or for a free per host slot.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size() + waitingProbes.get();
+    }
+
+    /**
+     * Return the amount of currently executed probes.
+     */
+    public int getActiveProbes() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Return the amount of probes that finished since the scheduler was created.
+     */
+    public long getCompletedProbes() {
+        return completedProbes.get();
+    }
+
+    /**
+     * Return the average execution time of a probe in milliseconds or 0 if no probe finished yet.
+     */
+    public double getAverageProbeLatency() {
+        long count = completedProbes.get();
+        if (count == 0) {
+            return 0;
+        }
+        return probeTimeSumInNS.get() / (double) count / 1000000.0;
+    }
+
+    /**
+     * Return the longest execution time of a probe in milliseconds.
+     */
+    public double getMaxProbeLatency() {
+        return maxProbeTimeInNS.get() / 1000000.0;
+    }
+}
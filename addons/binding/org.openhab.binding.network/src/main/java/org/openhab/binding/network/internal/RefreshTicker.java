@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.network.internal.utils.BatchProber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A binding wide singleton that performs the periodic refreshes of all {@link PresenceDetection} instances
+ * on a shared tick.
+ *
+ * The first refresh of a registration happens on the next tick. All following refreshes are aligned to
+ * multiples of the refresh interval, so that all registrations with the same interval (or intervals with a
+ * common multiple) are due on the same tick, no matter when they were registered. All refreshes that are due
+ * on a tick are performed together within {@link BatchProber#collect(Runnable)}, so that their batched pings
+ * are sent with a single process per tool.
+ *
+ * @author agent - Initial contribution
+ */
+public class RefreshTicker {
+    static final long TICK_IN_MS = 1000;
+
+    private static RefreshTicker instance;
+
+    private final Logger logger = LoggerFactory.getLogger(RefreshTicker.class);
+    private final Set<Registration> registrations = new HashSet<>();
+    private ScheduledFuture<?> tickJob;
+
+    /**
+     * A periodic refresh. Cancel it to stop refreshing.
+     */
+    public class Registration {
+        private final Runnable refresh;
+        private final long intervalInMS;
+        private long nextRefresh;
+
+        private Registration(Runnable refresh, long intervalInMS, long now) {
+            this.refresh = refresh;
+            this.intervalInMS = Math.max(intervalInMS, TICK_IN_MS);
+            this.nextRefresh = now;
+        }
+
+        /**
+         * Stop the periodic refresh. A refresh that is currently performed is not interrupted.
+         */
+        public void cancel() {
+            unregister(this);
+        }
+    }
+
+    RefreshTicker() {
+    }
+
+    /**
+     * Return the binding wide refresh ticker. It is created on first access.
+     */
+    public static synchronized RefreshTicker getInstance() {
+        if (instance == null) {
+            instance = new RefreshTicker();
+        }
+        return instance;
+    }
+
+    /**
+     * Perform the given refresh periodically. The ticks run on the given scheduler as long as there are
+     * registrations.
+     *
+     * @param refresh The refresh. Should not block, it delays all other refreshes of the same tick otherwise.
+     * @param intervalInMS The refresh interval in milliseconds. Rounded to full ticks.
+     * @param scheduler The scheduler for the ticks. Only used if the ticks are not already running.
+     * @return The registration, which is used to stop refreshing.
+     */
+    public synchronized Registration register(Runnable refresh, long intervalInMS, ScheduledExecutorService scheduler) {
+        Registration registration = register(refresh, intervalInMS, System.currentTimeMillis());
+        if (tickJob == null) {
+            tickJob = scheduler.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), TICK_IN_MS, TICK_IN_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return registration;
+    }
+
+    synchronized Registration register(Runnable refresh, long intervalInMS, long now) {
+        Registration registration = new Registration(refresh, intervalInMS, now);
+        registrations.add(registration);
+        return registration;
+    }
+
+    private synchronized void unregister(Registration registration) {
+        registrations.remove(registration);
+        if (registrations.isEmpty() && tickJob != null) {
+            tickJob.cancel(false);
+            tickJob = null;
+        }
+    }
+
+    /**
+     * Perform all refreshes that are due at the given time.
+     *
+     * @param now The current time in milliseconds since the epoch.
+     */
+    void tick(long now) {
+        final List<Runnable> dueRefreshes = new ArrayList<>();
+        synchronized (this) {
+            for (Registration registration : registrations) {
+                if (registration.nextRefresh <= now) {
+                    dueRefreshes.add(registration.refresh);
+                    registration.nextRefresh = (now / registration.intervalInMS + 1) * registration.intervalInMS;
+                }
+            }
+        }
+        if (dueRefreshes.isEmpty()) {
+            return;
+        }
+
+        logger.trace("Perform {} presence detection refreshes", dueRefreshes.size());
+        BatchProber.collect(() -> {
+            for (Runnable refresh : dueRefreshes) {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Presence detection refresh failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return the amount of registered periodic refreshes.
+     */
+    public synchronized int getRegistrations() {
+        return registrations.size();
+    }
+}
@@ -11,13 +11,13 @@ package org.openhab.binding.network.internal.discovery;
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
@@ -28,6 +28,7 @@ import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.ProbeScheduler;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -57,8 +58,8 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     // TCP port 554 (Windows share / Linux samba)
     // TCP port 1025 (XBox / MS-RPC)
     private Set<Integer> tcp_service_ports = Sets.newHashSet(80, 548, 554, 1025);
-    private Integer scannedIPcount;
-    private ExecutorService executorService = null;
+    private final AtomicInteger scannedIPcount = new AtomicInteger();
+    private List<PresenceDetection> scanDetections = null;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     NetworkUtils networkUtils = new NetworkUtils();
 
@@ -106,22 +107,34 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
 
     @Override
     public void finalDetectionResult(PresenceDetectionValue value) {
+        final List<PresenceDetection> detections = scanDetections;
+        if (detections == null) {
+            return;
+        }
+        if (scannedIPcount.incrementAndGet() == detections.size()) {
+            ProbeScheduler probeScheduler = ProbeScheduler.getInstance();
+            logger.trace("Scan of {} IPs successful. Average probe latency: {} ms. Spawned processes: {}",
+                    detections.size(), probeScheduler.getAverageProbeLatency(), NetworkUtils.getSpawnedProcesses());
+            // We are called with the lock of a PresenceDetection held, stop the scan outside of it
+            scheduler.execute(this::stopScan);
+        }
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Submits a presence detection for each IP on each interface on the network to the binding wide
+     * {@link ProbeScheduler}. The scan is finished as soon as all final detection results arrived.
      */
     @Override
-    protected void startScan() {
-        if (executorService != null) {
+    protected synchronized void startScan() {
+        if (scanDetections != null) {
             return;
         }
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Discovery");
 
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        scannedIPcount = 0;
+        final List<PresenceDetection> detections = new ArrayList<>(networkIPs.size());
+        scannedIPcount.set(0);
 
         for (String ip : networkIPs) {
             final PresenceDetection s = new PresenceDetection(this, 2000);
@@ -137,37 +150,37 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
             // Ping devices
             s.setUseIcmpPing(true);
             s.setUseArpPing(true, configuration.arpPingToolPath);
+            s.setUseBatchPing(configuration.fpingToolPath);
+            s.setUseBatchArpPing(configuration.arpScanToolPath);
             // TCP devices
             s.setServicePorts(tcp_service_ports);
+            detections.add(s);
+        }
+
+        if (detections.isEmpty()) {
+            return;
+        }
+        scanDetections = detections;
 
-            executorService.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                synchronized (scannedIPcount) {
-                    scannedIPcount += 1;
-                    if (scannedIPcount == networkIPs.size()) {
-                        logger.trace("Scan of {} IPs successful", scannedIPcount);
-                        stopScan();
-                    }
-                }
-            });
+        // The probes are executed on the shared probe scheduler. We do not wait for them here,
+        // but collect the results in partialDetectionResult() and finalDetectionResult().
+        for (PresenceDetection s : detections) {
+            s.performPresenceDetection(false);
         }
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        if (executorService == null) {
+        if (scanDetections == null) {
             return;
         }
 
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
+        // Remove not yet executed probes from the shared probe scheduler
+        for (PresenceDetection s : scanDetections) {
+            s.cancelPresenceDetection();
         }
-        executorService.shutdown();
-        executorService = null;
+        scanDetections = null;
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -176,7 +189,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the probes submitted in {@link startScan}.
      *
      * @param ip The device IP
      * @param tcpPort The TCP port
@@ -219,7 +232,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the probes submitted in {@link startScan}.
      *
      * @param ip The device IP
      */
@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects ping requests for many hosts within a short time window and performs them with a single
+ * invocation of an external tool that accepts multiple targets. The tool output is streamed and every
+ * host result is handed to the waiting requests as soon as it is available. Hosts that are not reported
+ * as reachable until the tool terminates are deemed unreachable.
+ *
+ * Pings that are requested within {@link #collect(Runnable)} are not limited by the time window. They are
+ * sent together as soon as the collecting action finished. The periodic refreshes of all things use this,
+ * see {@link org.openhab.binding.network.internal.RefreshTicker}.
+ *
+ * Two tools are supported:
+ * * fping (https://fping.org) for ICMP pings.
+ * * arp-scan (https://github.com/royhills/arp-scan) for ARP pings on a given network interface.
+ *
+ * @author agent - Initial contribution
+ */
+public class BatchProber {
+    static final int BATCH_WINDOW_IN_MS = 20;
+
+    private static final Map<String, BatchProber> INSTANCES = new HashMap<>();
+    // Guarded by BatchProber.class
+    private static int collectingActions = 0;
+    private static final Set<BatchProber> COLLECTED_PROBERS = new HashSet<>();
+    private static ScheduledExecutorService windowScheduler;
+    private static ExecutorService batchExecutor;
+
+    private final Logger logger = LoggerFactory.getLogger(BatchProber.class);
+    private final BatchTool tool;
+    private final String toolPath;
+    private final String interfaceName;
+
+    // Requests of the next batch. Guarded by "this".
+    private Map<String, List<CompletableFuture<Boolean>>> pending = new HashMap<>();
+    private int pendingTimeoutInMS = 0;
+    private boolean batchScheduled = false;
+
+    public enum BatchTool {
+        FPING,
+        ARP_SCAN
+    }
+
+    BatchProber(BatchTool tool, String toolPath, String interfaceName) {
+        this.tool = tool;
+        this.toolPath = toolPath;
+        this.interfaceName = interfaceName;
+    }
+
+    /**
+     * Return the batch prober for ICMP pings with the fping tool.
+     *
+     * @param fpingToolPath The fping absolute path including filename or just "fping".
+     */
+    public static BatchProber getFping(String fpingToolPath) {
+        return getInstance(BatchTool.FPING, fpingToolPath, null);
+    }
+
+    /**
+     * Return the batch prober for ARP pings on the given interface with the arp-scan tool.
+     *
+     * @param arpScanToolPath The arp-scan absolute path including filename or just "arp-scan".
+     * @param interfaceName An interface name, on linux for example "wlp58s0", shown by ifconfig.
+     */
+    public static BatchProber getArpScan(String arpScanToolPath, String interfaceName) {
+        return getInstance(BatchTool.ARP_SCAN, arpScanToolPath, interfaceName);
+    }
+
+    private static synchronized BatchProber getInstance(BatchTool tool, String toolPath, String interfaceName) {
+        String key = tool.name() + " " + toolPath + " " + interfaceName;
+        return INSTANCES.computeIfAbsent(key, k -> new BatchProber(tool, toolPath, interfaceName));
+    }
+
+    /**
+     * Return the executor that performs the batches. A batch blocks its thread until the tool terminated,
+     * so the batches of different tools and interfaces get their own threads.
+     */
+    private static synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            batchExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), createThreadFactory("networkBatchProbe-"));
+        }
+        return batchExecutor;
+    }
+
+    private static synchronized ScheduledExecutorService getWindowScheduler() {
+        if (windowScheduler == null) {
+            windowScheduler = new ScheduledThreadPoolExecutor(1, createThreadFactory("networkBatchWindow-"));
+        }
+        return windowScheduler;
+    }
+
+    private static ThreadFactory createThreadFactory(String namePrefix) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run the given action and send all pings it requests as soon as it finished, without waiting for the
+     * batch time window. Nested calls send the pings when the outermost action finished.
+     *
+     * @param action An action that requests pings, for example the presence detection of many hosts.
+     */
+    public static void collect(Runnable action) {
+        synchronized (BatchProber.class) {
+            collectingActions++;
+        }
+        try {
+            action.run();
+        } finally {
+            synchronized (BatchProber.class) {
+                collectingActions--;
+                if (collectingActions == 0) {
+                    COLLECTED_PROBERS.forEach(prober -> prober.scheduleBatch(0));
+                    COLLECTED_PROBERS.clear();
+                }
+            }
+        }
+    }
+
+    public BatchTool getTool() {
+        return tool;
+    }
+
+    /**
+     * Request a ping for the given host. The request is added to the next batch, which is sent after the batch
+     * time window or, within {@link #collect(Runnable)}, as soon as the collecting action finished.
+     *
+     * @param ipAddress The IP address. For arp-scan this must be an IPv4 address.
+     * @param timeoutInMS A timeout in milliseconds. The largest timeout of all requests is used for a batch.
+     * @return A future that is completed with true if the host responded and false otherwise. The future is
+     *         completed exceptionally if the tool could not be executed.
+     */
+    public CompletableFuture<Boolean> ping(String ipAddress, int timeoutInMS) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        synchronized (BatchProber.class) {
+            synchronized (this) {
+                pending.computeIfAbsent(ipAddress, k -> new ArrayList<>()).add(result);
+                pendingTimeoutInMS = Math.max(pendingTimeoutInMS, timeoutInMS);
+            }
+            if (collectingActions > 0) {
+                COLLECTED_PROBERS.add(this);
+            } else {
+                scheduleBatch(BATCH_WINDOW_IN_MS);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Schedule the pending requests to be sent after the given delay, if they are not scheduled already.
+     */
+    private synchronized void scheduleBatch(int delayInMS) {
+        if (batchScheduled || pending.isEmpty()) {
+            return;
+        }
+        batchScheduled = true;
+        if (delayInMS == 0) {
+            getBatchExecutor().execute(this::performBatch);
+        } else {
+            getWindowScheduler().schedule(() -> getBatchExecutor().execute(this::performBatch), delayInMS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Build the command line for the given hosts.
+     */
+    List<String> buildCommand(List<String> hosts, int timeoutInMS) {
+        List<String> command = new ArrayList<>(hosts.size() + 8);
+        command.add(toolPath);
+        switch (tool) {
+            case FPING:
+                // Single try, per target timeout in ms
+                command.add("-r");
+                command.add("0");
+                command.add("-t");
+                command.add(String.valueOf(timeoutInMS));
+                break;
+            case ARP_SCAN:
+                // Quiet output, single retry, initial per target timeout in ms
+                command.add("-q");
+                command.add("-r");
+                command.add("1");
+                command.add("-t");
+                command.add(String.valueOf(timeoutInMS));
+                command.add("-I");
+                command.add(interfaceName);
+                break;
+        }
+        command.addAll(hosts);
+        return command;
+    }
+
+    /**
+     * Parse an output line of the tool.
+     *
+     * @return The address of a reachable host or null if the line does not report a reachable host.
+     */
+    String parseReachableHost(String line) {
+        switch (tool) {
+            case FPING:
+                // "192.168.0.1 is alive" or "192.168.0.2 is unreachable"
+                if (line.endsWith(" is alive") || line.contains(" is alive ")) {
+                    return line.substring(0, line.indexOf(' '));
+                }
+                return null;
+            case ARP_SCAN:
+                // "192.168.0.1<TAB>00:11:22:33:44:55"
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    return line.substring(0, tab);
+                }
+                return null;
+        }
+        return null;
+    }
+
+    Process startProcess(List<String> command) throws IOException {
+        NetworkUtils.countSpawnedProcess();
+        // fping reports unreachable hosts on stderr. Both streams need to be consumed.
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+
+    void performBatch() {
+        final Map<String, List<CompletableFuture<Boolean>>> batch;
+        final int timeoutInMS;
+        synchronized (this) {
+            batch = pending;
+            timeoutInMS = pendingTimeoutInMS;
+            pending = new HashMap<>();
+            pendingTimeoutInMS = 0;
+            batchScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final List<String> hosts = new ArrayList<>(batch.keySet());
+        logger.trace("Perform {} batch probe for {} hosts", tool, hosts.size());
+
+        Process process = null;
+        try {
+            process = startProcess(buildCommand(hosts, timeoutInMS));
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String host = parseReachableHost(line);
+                    List<CompletableFuture<Boolean>> requests = host == null ? null : batch.remove(host);
+                    if (requests != null) {
+                        requests.forEach(r -> r.complete(true));
+                    }
+                }
+            }
+            process.waitFor();
+        } catch (IOException e) {
+            logger.trace("Failed to execute the {} batch probe", tool, e);
+            batch.values().forEach(requests -> requests.forEach(r -> r.completeExceptionally(e)));
+            batch.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Reset interrupt flag
+            process.destroy();
+        }
+
+        // All hosts that were not reported are not reachable
+        batch.values().forEach(requests -> requests.forEach(r -> r.complete(false)));
+    }
+}
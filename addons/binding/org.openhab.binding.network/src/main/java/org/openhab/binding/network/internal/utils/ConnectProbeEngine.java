@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton that performs TCP connection attempts ("service pings") with non-blocking
+ * {@link SocketChannel}s. All pending connection attempts are multiplexed on one {@link Selector}
+ * and handled by one thread, each attempt has its own deadline.
+ *
+ * A connection attempt is successful if the connection is established or refused by the remote side,
+ * because there is a device on the other end in both cases. The thread terminates if there were no
+ * connection attempts for {@link #IDLE_TIMEOUT_IN_MS} and is restarted on demand.
+ *
+ * @author agent - Initial contribution
+ */
+public class ConnectProbeEngine {
+    static final int IDLE_TIMEOUT_IN_MS = 10000;
+
+    private static ConnectProbeEngine instance;
+
+    private final Logger logger = LoggerFactory.getLogger(ConnectProbeEngine.class);
+    private final Queue<Probe> newProbes = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private Thread selectorThread;
+
+    /**
+     * A pending connection attempt.
+     */
+    private static class Probe implements Comparable<Probe> {
+        final SocketChannel channel;
+        final long deadlineInNS;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Probe(SocketChannel channel, long deadlineInNS) {
+            this.channel = channel;
+            this.deadlineInNS = deadlineInNS;
+        }
+
+        @Override
+        public int compareTo(Probe o) {
+            return Long.compare(deadlineInNS, o.deadlineInNS);
+        }
+    }
+
+    /**
+     * Return the binding wide connect probe engine.
+     */
+    public static synchronized ConnectProbeEngine getInstance() {
+        if (instance == null) {
+            instance = new ConnectProbeEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Try to establish a tcp connection to the given address. The returned future is completed with true if the
+     * connection was established or refused and with false if a timeout occurred or there is no route to the host.
+     * The future is completed on the thread of this engine, dependent actions should therefore be fast.
+     * Cancelling the future aborts the connection attempt.
+     *
+     * @param address The socket address. Must not be null.
+     * @param timeoutInMS Timeout in milliseconds
+     * @return A future with the result of the connection attempt.
+     */
+    public CompletableFuture<Boolean> probe(InetSocketAddress address, int timeoutInMS) {
+        if (address.isUnresolved()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(address)) {
+                channel.close();
+                return CompletableFuture.completedFuture(true);
+            }
+        } catch (ConnectException e) {
+            // Connection refused, there is a device on the other end though
+            closeQuietly(channel);
+            return CompletableFuture.completedFuture(true);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        Probe probe = new Probe(channel, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMS));
+        try {
+            enqueue(probe);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            probe.result.completeExceptionally(e);
+        }
+        return probe.result;
+    }
+
+    private synchronized void enqueue(Probe probe) throws IOException {
+        newProbes.add(probe);
+        if (selectorThread == null) {
+            selector = Selector.open();
+            selectorThread = new Thread(this::selectLoop, "networkConnectProbe");
+            selectorThread.setDaemon(true);
+            selectorThread.start();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Terminates the selector thread if there are no new connection attempts.
+     *
+     * @return Return true if the thread should terminate.
+     */
+    private synchronized boolean stopIfIdle() {
+        if (!newProbes.isEmpty()) {
+            return false;
+        }
+        closeQuietly(selector);
+        selector = null;
+        selectorThread = null;
+        return true;
+    }
+
+    private void selectLoop() {
+        final Selector selector;
+        synchronized (this) {
+            selector = this.selector;
+        }
+        final PriorityQueue<Probe> deadlines = new PriorityQueue<>();
+
+        try {
+            while (true) {
+                // Register new connection attempts
+                Probe newProbe;
+                while ((newProbe = newProbes.poll()) != null) {
+                    try {
+                        newProbe.channel.register(selector, SelectionKey.OP_CONNECT, newProbe);
+                        deadlines.add(newProbe);
+                    } catch (IOException e) {
+                        closeQuietly(newProbe.channel);
+                        newProbe.result.complete(false);
+                    }
+                }
+
+                long timeoutInMS;
+                if (deadlines.isEmpty()) {
+                    timeoutInMS = IDLE_TIMEOUT_IN_MS;
+                } else {
+                    timeoutInMS = Math.max(1,
+                            TimeUnit.NANOSECONDS.toMillis(deadlines.peek().deadlineInNS - System.nanoTime()));
+                }
+
+                if (selector.select(timeoutInMS) == 0 && deadlines.isEmpty() && newProbes.isEmpty()) {
+                    if (stopIfIdle()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                // Finish connection attempts
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Probe probe = (Probe) key.attachment();
+                    key.cancel();
+                    // The probe stays in the deadline queue and is removed lazily below
+                    probe.result.complete(finishConnect(probe.channel));
+                }
+
+                // Expire connection attempts. Finished and cancelled probes are removed here as well.
+                final long now = System.nanoTime();
+                while (!deadlines.isEmpty()
+                        && (deadlines.peek().deadlineInNS <= now || deadlines.peek().result.isDone())) {
+                    Probe probe = deadlines.poll();
+                    closeQuietly(probe.channel);
+                    probe.result.complete(false);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            logger.warn("Connect probe selector failed", e);
+            for (Probe probe : deadlines) {
+                closeQuietly(probe.channel);
+                probe.result.completeExceptionally(e);
+            }
+            synchronized (this) {
+                closeQuietly(selector);
+                this.selector = null;
+                selectorThread = null;
+                // Connection attempts that got enqueued in the meantime would never be processed
+                Probe probe;
+                while ((probe = newProbes.poll()) != null) {
+                    closeQuietly(probe.channel);
+                    probe.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private boolean finishConnect(SocketChannel channel) {
+        try {
+            return channel.finishConnect();
+        } catch (ConnectException e) {
+            // Connection refused, there is a device on the other end though
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -9,24 +9,25 @@
 package org.openhab.binding.network.internal.utils;
 
 import java.io.IOException;
-import java.net.ConnectException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
-import java.net.NoRouteToHostException;
 import java.net.PortUnreachableException;
-import java.net.Socket;
-import java.net.SocketAddress;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.SystemUtils;
@@ -39,6 +40,34 @@ import org.eclipse.smarthome.io.net.exec.ExecUtil;
  * @author David Graeff <david.graeff@web.de>
  */
 public class NetworkUtils {
+    private static final AtomicLong SPAWNED_PROCESSES = new AtomicLong();
+    private static final Map<String, Optional<?>> FEATURE_TESTS = new ConcurrentHashMap<>();
+
+    /**
+     * Return the amount of external processes (ping, arping, fping, arp-scan) that were spawned
+     * for presence detection since the binding was started.
+     */
+    public static long getSpawnedProcesses() {
+        return SPAWNED_PROCESSES.get();
+    }
+
+    static void countSpawnedProcess() {
+        SPAWNED_PROCESSES.incrementAndGet();
+    }
+
+    /**
+     * The feature tests for the external utilities spawn processes themselves. Their results are cached
+     * and only determined again after this method got called, for example after a configuration change.
+     */
+    public static void clearFeatureTests() {
+        FEATURE_TESTS.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cachedFeatureTest(String key, Supplier<T> featureTest) {
+        return (T) FEATURE_TESTS.computeIfAbsent(key, k -> Optional.ofNullable(featureTest.get())).orElse(null);
+    }
+
     /**
      * Gets every IPv4 Address on each Interface except the loopback
      * The Address format is ip/subnet
@@ -144,29 +173,17 @@ public class NetworkUtils {
     }
 
     /**
-     * Try to establish a tcp connection to the given port. Returns false if a timeout occurred
-     * or the connection was denied.
+     * Try to establish a tcp connection to the given port. The connection attempt is performed
+     * asynchronously by the {@link ConnectProbeEngine}. The result is false if a timeout occurred
+     * and true if the connection was established or denied.
      *
      * @param host The IP or hostname
      * @param port The tcp port. Must be not 0.
      * @param timeout Timeout in ms
-     * @param logger A slf4j logger instance to log IOException
-     * @return
-     * @throws IOException
+     * @return A future with the result. Completes exceptionally if no socket could be created.
      */
-    public boolean servicePing(String host, int port, int timeout) throws IOException {
-        SocketAddress socketAddress = new InetSocketAddress(host, port);
-        try (Socket socket = new Socket()) {
-            socket.connect(socketAddress, timeout);
-            return true;
-        } catch (NoRouteToHostException ignored) {
-            return false;
-        } catch (SocketTimeoutException ignored) {
-            return false;
-        } catch (ConnectException e) {
-            // Connection refused, there is a device on the other end though
-            return true;
-        }
+    public CompletableFuture<Boolean> servicePing(String host, int port, int timeout) {
+        return ConnectProbeEngine.getInstance().probe(new InetSocketAddress(host, port), timeout);
     }
 
     /**
@@ -174,6 +191,10 @@ public class NetworkUtils {
      * works JavaPing is returned.
      */
     public IpPingMethodEnum determinePingMethod() {
+        return cachedFeatureTest("ping", this::performPingFeatureTest);
+    }
+
+    private IpPingMethodEnum performPingFeatureTest() {
         IpPingMethodEnum method;
         if (SystemUtils.IS_OS_WINDOWS) {
             method = IpPingMethodEnum.WINDOWS_PING;
@@ -201,6 +222,10 @@ public class NetworkUtils {
      * Return true if the external arp ping utility (arping) is available and executable on the given path.
      */
     public ArpPingUtilEnum determineNativeARPpingMethod(String arpToolPath) {
+        return cachedFeatureTest("arping " + arpToolPath, () -> performARPpingFeatureTest(arpToolPath));
+    }
+
+    private ArpPingUtilEnum performARPpingFeatureTest(String arpToolPath) {
         String result = ExecUtil.executeCommandLineAndWaitResponse(arpToolPath, 100);
         if (StringUtils.isBlank(result)) {
             return null;
@@ -254,11 +279,43 @@ public class NetworkUtils {
 
         }
 
+        countSpawnedProcess();
+
         // The return code is 0 for a successful ping. 1 if device didn't respond and 2 if there is another error like
         // network interface not ready.
         return proc.waitFor() == 0;
     }
 
+    /**
+     * Return the batch prober for ICMP pings if the external fping utility is available and executable
+     * on the given path. Return null otherwise.
+     */
+    public BatchProber determineBatchPing(String fpingToolPath) {
+        if (StringUtils.isBlank(fpingToolPath)) {
+            return null;
+        }
+        Boolean available = cachedFeatureTest("fping " + fpingToolPath, () -> {
+            String result = ExecUtil.executeCommandLineAndWaitResponse(fpingToolPath + " -v", 100);
+            return StringUtils.isNotBlank(result) && result.contains("fping: Version");
+        });
+        return available ? BatchProber.getFping(fpingToolPath) : null;
+    }
+
+    /**
+     * Return true if the external arp-scan utility is available and executable on the given path.
+     * Use {@link BatchProber#getArpScan(String, String)} to get the batch prober for an interface.
+     */
+    public boolean determineBatchArpPing(String arpScanToolPath) {
+        if (StringUtils.isBlank(arpScanToolPath)) {
+            return false;
+        }
+        Boolean available = cachedFeatureTest("arp-scan " + arpScanToolPath, () -> {
+            String result = ExecUtil.executeCommandLineAndWaitResponse(arpScanToolPath + " --version", 100);
+            return StringUtils.isNotBlank(result) && result.contains("arp-scan");
+        });
+        return available;
+    }
+
     public enum ArpPingUtilEnum {
         UNKNOWN_TOOL,
         IPUTILS_ARPING,
@@ -292,6 +349,7 @@ public class NetworkUtils {
             proc = new ProcessBuilder(arpUtilPath, "-w", String.valueOf(timeoutInMS / 1000), "-c", "1", "-I",
                     interfaceName, ipV4address).start();
         }
+        countSpawnedProcess();
 
         // The return code is 0 for a successful ping. 1 if device didn't respond and 2 if there is another error like
         // network interface not ready.
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * Test for the duplicate frame filter of the RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComDuplicateFilterTest {
+
+    @Test
+    public void testRepeatedFrames() {
+        RFXComDuplicateFilter filter = new RFXComDuplicateFilter(1000);
+
+        // Same frame with sequence numbers 6, 7 and 8
+        assertEquals("First frame", false, filter.isDuplicate(parse("0B11000600109B520B000080"), 0));
+        assertEquals("First repeat", true, filter.isDuplicate(parse("0B11000700109B520B000080"), 100));
+        assertEquals("Second repeat", true, filter.isDuplicate(parse("0B11000800109B520B000080"), 200));
+
+        // Different command of the same device
+        assertEquals("Other command", false, filter.isDuplicate(parse("0B11000900109B520B010F80"), 300));
+
+        // Same frame after the window
+        assertEquals("Frame after window", false, filter.isDuplicate(parse("0B11000A00109B520B010F80"), 1500));
+
+        assertEquals("Received", 5, filter.getReceived(PacketType.LIGHTING2));
+        assertEquals("Suppressed", 2, filter.getSuppressed(PacketType.LIGHTING2));
+        assertEquals("Statistics", "LIGHTING2: 5 received, 2 suppressed", filter.getStatistics());
+    }
+
+    @Test
+    public void testDisabled() {
+        RFXComDuplicateFilter filter = new RFXComDuplicateFilter(0);
+
+        assertEquals("First frame", false, filter.isDuplicate(parse("0B11000600109B520B000080"), 0));
+        assertEquals("Repeat", false, filter.isDuplicate(parse("0B11000700109B520B000080"), 100));
+        assertEquals("Received", 2, filter.getReceived(PacketType.LIGHTING2));
+    }
+
+    @Test
+    public void testInterfaceResponses() {
+        RFXComDuplicateFilter filter = new RFXComDuplicateFilter(1000);
+
+        assertEquals("First response", false, filter.isDuplicate(parse("0402010100"), 0));
+        assertEquals("Second response", false, filter.isDuplicate(parse("0402010100"), 100));
+    }
+
+    private byte[] parse(String hexMessage) {
+        return DatatypeConverter.parseHexBinary(hexMessage);
+    }
+}
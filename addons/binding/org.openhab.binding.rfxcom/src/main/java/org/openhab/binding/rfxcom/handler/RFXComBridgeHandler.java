@@ -11,8 +11,10 @@ package org.openhab.binding.rfxcom.handler;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
@@ -28,6 +30,7 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.RFXComDuplicateFilter;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -37,6 +40,7 @@ import org.openhab.binding.rfxcom.internal.connector.RFXComTcpConnector;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceControlMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage.Commands;
@@ -65,8 +69,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     private MessageListener eventListener = new MessageListener();
 
     private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private Map<PacketType, Map<String, DeviceMessageListener>> deviceMessageListeners = new ConcurrentHashMap<>();
 
     private RFXComBridgeConfiguration configuration = null;
+    private volatile RFXComDuplicateFilter duplicateFilter = new RFXComDuplicateFilter(0);
     private ScheduledFuture<?> connectorTask;
     private Set<ThingUID> knownDevices = new HashSet<>();
 
@@ -124,6 +130,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
             unregisterDeviceStatusListener(deviceStatusListener);
         }
+        deviceMessageListeners.clear();
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -136,6 +143,8 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
             connectorTask = null;
         }
 
+        logger.debug("Received frames: {}", duplicateFilter.getStatistics());
+
         super.dispose();
     }
 
@@ -145,6 +154,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         updateStatus(ThingStatus.OFFLINE);
 
         configuration = getConfigAs(RFXComBridgeConfiguration.class);
+        duplicateFilter = new RFXComDuplicateFilter(configuration.duplicateWindow);
 
         if (connectorTask == null || connectorTask.isCancelled()) {
             connectorTask = scheduler.scheduleWithFixedDelay(new Runnable() {
@@ -229,6 +239,11 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
         @Override
         public void packetReceived(byte[] packet) {
+            if (duplicateFilter.isDuplicate(packet)) {
+                logger.trace("Duplicate frame suppressed, data: {}", DatatypeConverter.printHexBinary(packet));
+                return;
+            }
+
             try {
                 RFXComMessage message = RFXComMessageFactory.createMessage(packet);
                 logger.debug("Message received: {}", message);
@@ -289,14 +304,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     transmitQueue.sendNext();
                 } else {
-
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
-                        } catch (Exception e) {
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
-                    }
+                    dispatchDeviceMessage((RFXComBaseMessage) message);
                 }
             } catch (RFXComMessageNotImplementedException e) {
                 logger.debug("Message not supported, data: {}", DatatypeConverter.printHexBinary(packet));
@@ -308,6 +316,32 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
             }
         }
 
+        /**
+         * Hand the message over to the handler of the device only. Messages of devices
+         * without a handler are handed over to the discovery listeners.
+         */
+        private void dispatchDeviceMessage(RFXComBaseMessage message) throws RFXComException {
+            Map<String, DeviceMessageListener> listeners = deviceMessageListeners.get(message.packetType);
+            DeviceMessageListener deviceMessageListener = listeners == null ? null
+                    : listeners.get(message.getDeviceId());
+
+            if (deviceMessageListener != null) {
+                notifyListener(deviceMessageListener, message);
+            } else {
+                for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
+                    notifyListener(deviceStatusListener, message);
+                }
+            }
+        }
+
+        private void notifyListener(DeviceMessageListener listener, RFXComMessage message) {
+            try {
+                listener.onDeviceMessageReceived(getThing().getUID(), message);
+            } catch (Exception e) {
+                logger.error("An exception occurred while calling the DeviceStatusListener", e);
+            }
+        }
+
         @Override
         public void errorOccurred(String error) {
             logger.error("Error occurred: {}", error);
@@ -315,6 +349,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Register a listener for messages of devices, which don't have a listener registered
+     * with {@link #registerDeviceMessageListener(PacketType, String, DeviceMessageListener)}.
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
@@ -330,6 +368,31 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         return deviceStatusListeners.remove(deviceStatusListener);
     }
 
+    /**
+     * Register the listener for the messages of a single device. The listener replaces any
+     * listener previously registered for the same device.
+     */
+    public void registerDeviceMessageListener(PacketType packetType, String deviceId,
+            DeviceMessageListener deviceMessageListener) {
+        if (packetType == null || deviceId == null || deviceMessageListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null packetType, deviceId or listener.");
+        }
+        deviceMessageListeners.computeIfAbsent(packetType, k -> new ConcurrentHashMap<>()).put(deviceId,
+                deviceMessageListener);
+    }
+
+    /**
+     * Unregister the listener from all devices it was registered for.
+     */
+    public void unregisterDeviceMessageListener(DeviceMessageListener deviceMessageListener) {
+        if (deviceMessageListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceMessageListener.");
+        }
+        for (Map<String, DeviceMessageListener> listeners : deviceMessageListeners.values()) {
+            listeners.values().removeIf(listener -> listener == deviceMessageListener);
+        }
+    }
+
     public RFXComBridgeConfiguration getConfiguration() {
         return configuration;
     }
@@ -10,7 +10,11 @@ package org.openhab.binding.rfxcom.handler;
 
 import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
@@ -19,6 +23,7 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
@@ -30,7 +35,6 @@ import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
 import org.openhab.binding.rfxcom.internal.config.RFXComDeviceConfiguration;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
-import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
@@ -46,10 +50,52 @@ import org.slf4j.LoggerFactory;
 public class RFXComHandler extends BaseThingHandler implements DeviceMessageListener {
     private static final int LOW_BATTERY_LEVEL = 1;
 
+    private static final Map<RFXComValueSelector, String> SELECTOR_CHANNELS = new EnumMap<>(
+            RFXComValueSelector.class);
+
+    static {
+        SELECTOR_CHANNELS.put(RFXComValueSelector.BATTERY_LEVEL, CHANNEL_BATTERY_LEVEL);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CHIME_SOUND, CHANNEL_CHIME_SOUND);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.COMMAND, CHANNEL_COMMAND);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.COMMAND_ID, CHANNEL_COMMAND_ID);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CONTACT, CHANNEL_CONTACT);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CONTACT_1, CHANNEL_CONTACT_1);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CONTACT_2, CHANNEL_CONTACT_2);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CONTACT_3, CHANNEL_CONTACT_3);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.DIMMING_LEVEL, CHANNEL_DIMMING_LEVEL);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.FORECAST, CHANNEL_FORECAST);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.HUMIDITY, CHANNEL_HUMIDITY);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.HUMIDITY_STATUS, CHANNEL_HUMIDITY_STATUS);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.INSTANT_AMPS, CHANNEL_INSTANT_AMPS);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.INSTANT_POWER, CHANNEL_INSTANT_POWER);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.LOW_BATTERY, CHANNEL_BATTERY_LEVEL);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.MOOD, CHANNEL_MOOD);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.MOTION, CHANNEL_MOTION);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.PRESSURE, CHANNEL_PRESSURE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.RAIN_RATE, CHANNEL_RAIN_RATE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.RAIN_TOTAL, CHANNEL_RAIN_TOTAL);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.RAW_MESSAGE, CHANNEL_RAW_MESSAGE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.RAW_PAYLOAD, CHANNEL_RAW_PAYLOAD);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.SET_POINT, CHANNEL_SET_POINT);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.SHUTTER, CHANNEL_SHUTTER);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.SIGNAL_LEVEL, CHANNEL_SIGNAL_LEVEL);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.STATUS, CHANNEL_STATUS);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.TEMPERATURE, CHANNEL_TEMPERATURE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.CHILL_TEMPERATURE, CHANNEL_CHILL_TEMPERATURE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.TOTAL_AMP_HOUR, CHANNEL_TOTAL_AMP_HOUR);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.TOTAL_USAGE, CHANNEL_TOTAL_USAGE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.UV, CHANNEL_UV);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.VOLTAGE, CHANNEL_VOLTAGE);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.WIND_DIRECTION, CHANNEL_WIND_DIRECTION);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.AVG_WIND_SPEED, CHANNEL_AVG_WIND_SPEED);
+        SELECTOR_CHANNELS.put(RFXComValueSelector.WIND_SPEED, CHANNEL_WIND_SPEED);
+    }
+
     private final Logger logger = LoggerFactory.getLogger(RFXComHandler.class);
 
     private RFXComBridgeHandler bridgeHandler;
     private RFXComDeviceConfiguration config;
+    private Map<RFXComValueSelector, String> channelSelectors = Collections.emptyMap();
 
     public RFXComHandler(Thing thing) {
         super(thing);
@@ -118,7 +164,12 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
         } else if (thingHandler != null && bridgeStatus != null) {
 
             bridgeHandler = (RFXComBridgeHandler) thingHandler;
-            bridgeHandler.registerDeviceStatusListener(this);
+            PacketType packetType = getPacketType(getThing().getThingTypeUID());
+            bridgeHandler.unregisterDeviceMessageListener(this);
+            if (packetType != null) {
+                channelSelectors = getChannelSelectors(packetType);
+                bridgeHandler.registerDeviceMessageListener(packetType, config.deviceId, this);
+            }
 
             if (bridgeStatus == ThingStatus.ONLINE) {
                 updateStatus(ThingStatus.ONLINE);
@@ -134,149 +185,74 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
     public void dispose() {
         logger.debug("Thing {} disposed.", getThing().getUID());
         if (bridgeHandler != null) {
-            bridgeHandler.unregisterDeviceStatusListener(this);
+            bridgeHandler.unregisterDeviceMessageListener(this);
         }
         bridgeHandler = null;
         super.dispose();
     }
 
+    private PacketType getPacketType(ThingTypeUID thingTypeUID) {
+        for (Entry<PacketType, ThingTypeUID> entry : PACKET_TYPE_THING_TYPE_UID_MAP.entrySet()) {
+            if (entry.getValue().equals(thingTypeUID)) {
+                return entry.getKey();
+            }
+        }
+        logger.warn("No packet type found for thing type {}", thingTypeUID);
+        return null;
+    }
+
+    /**
+     * Get the value selectors of the packet type, which have a channel on this thing, in order
+     * to only convert those values of the received messages.
+     */
+    private Map<RFXComValueSelector, String> getChannelSelectors(PacketType packetType) {
+        Map<RFXComValueSelector, String> selectors = new EnumMap<>(RFXComValueSelector.class);
+        try {
+            List<RFXComValueSelector> supportedValueSelectors = RFXComMessageFactory.createMessage(packetType)
+                    .getSupportedInputValueSelectors();
+            if (supportedValueSelectors != null) {
+                for (RFXComValueSelector valueSelector : supportedValueSelectors) {
+                    String channelId = SELECTOR_CHANNELS.get(valueSelector);
+                    if (channelId == null) {
+                        logger.debug("Unsupported value selector '{}'", valueSelector);
+                    } else if (getThing().getChannel(channelId) != null) {
+                        selectors.put(valueSelector, channelId);
+                    }
+                }
+            }
+        } catch (RFXComException e) {
+            logger.debug("Can't get value selectors of packet type {}", packetType, e);
+        }
+        return selectors;
+    }
+
+    private State convertToState(RFXComMessage message, RFXComValueSelector valueSelector) throws RFXComException {
+        State state = message.convertToState(valueSelector);
+        switch (valueSelector) {
+            case BATTERY_LEVEL:
+                return convertBatteryLevelToSystemWideLevel(state);
+            case LOW_BATTERY:
+                return isLowBattery(state);
+            case SIGNAL_LEVEL:
+                return convertSignalLevelToSystemWideLevel(state);
+            default:
+                return state;
+        }
+    }
+
     @Override
     public void onDeviceMessageReceived(ThingUID bridge, RFXComMessage message) {
         try {
-            String id = message.getDeviceId();
-            if (config.deviceId.equals(id)) {
-                RFXComBaseMessage msg = (RFXComBaseMessage) message;
-                String receivedId = PACKET_TYPE_THING_TYPE_UID_MAP.get(msg.packetType).getId();
-                logger.debug("Received message from bridge: {} message: {}", bridge, message);
-
-                if (receivedId.equals(getThing().getThingTypeUID().getId())) {
-                    updateStatus(ThingStatus.ONLINE);
-
-                    List<RFXComValueSelector> supportedValueSelectors = msg.getSupportedInputValueSelectors();
-
-                    if (supportedValueSelectors != null) {
-                        for (RFXComValueSelector valueSelector : supportedValueSelectors) {
-                            try {
-                                switch (valueSelector) {
-                                    case BATTERY_LEVEL:
-                                        updateState(CHANNEL_BATTERY_LEVEL, convertBatteryLevelToSystemWideLevel(
-                                                message.convertToState(valueSelector)));
-                                        break;
-                                    case CHIME_SOUND:
-                                        updateState(CHANNEL_CHIME_SOUND, message.convertToState(valueSelector));
-                                        break;
-                                    case COMMAND:
-                                        updateState(CHANNEL_COMMAND, message.convertToState(valueSelector));
-                                        break;
-                                    case COMMAND_ID:
-                                        updateState(CHANNEL_COMMAND_ID, message.convertToState(valueSelector));
-                                        break;
-                                    case CONTACT:
-                                        updateState(CHANNEL_CONTACT, message.convertToState(valueSelector));
-                                        break;
-                                    case CONTACT_1:
-                                        updateState(CHANNEL_CONTACT_1, message.convertToState(valueSelector));
-                                        break;
-                                    case CONTACT_2:
-                                        updateState(CHANNEL_CONTACT_2, message.convertToState(valueSelector));
-                                        break;
-                                    case CONTACT_3:
-                                        updateState(CHANNEL_CONTACT_3, message.convertToState(valueSelector));
-                                        break;
-                                    case DIMMING_LEVEL:
-                                        updateState(CHANNEL_DIMMING_LEVEL, message.convertToState(valueSelector));
-                                        break;
-                                    case FORECAST:
-                                        updateState(CHANNEL_FORECAST, message.convertToState(valueSelector));
-                                        break;
-                                    case HUMIDITY:
-                                        updateState(CHANNEL_HUMIDITY, message.convertToState(valueSelector));
-                                        break;
-                                    case HUMIDITY_STATUS:
-                                        updateState(CHANNEL_HUMIDITY_STATUS, message.convertToState(valueSelector));
-                                        break;
-                                    case INSTANT_AMPS:
-                                        updateState(CHANNEL_INSTANT_AMPS, message.convertToState(valueSelector));
-                                        break;
-                                    case INSTANT_POWER:
-                                        updateState(CHANNEL_INSTANT_POWER, message.convertToState(valueSelector));
-                                        break;
-                                    case LOW_BATTERY:
-                                        updateState(CHANNEL_BATTERY_LEVEL,
-                                                isLowBattery(message.convertToState(valueSelector)));
-                                        break;
-
-                                    case MOOD:
-                                        updateState(CHANNEL_MOOD, message.convertToState(valueSelector));
-                                        break;
-                                    case MOTION:
-                                        updateState(CHANNEL_MOTION, message.convertToState(valueSelector));
-                                        break;
-                                    case PRESSURE:
-                                        updateState(CHANNEL_PRESSURE, message.convertToState(valueSelector));
-                                        break;
-                                    case RAIN_RATE:
-                                        updateState(CHANNEL_RAIN_RATE, message.convertToState(valueSelector));
-                                        break;
-                                    case RAIN_TOTAL:
-                                        updateState(CHANNEL_RAIN_TOTAL, message.convertToState(valueSelector));
-                                        break;
-                                    case RAW_MESSAGE:
-                                        updateState(CHANNEL_RAW_MESSAGE, message.convertToState(valueSelector));
-                                        break;
-                                    case RAW_PAYLOAD:
-                                        updateState(CHANNEL_RAW_PAYLOAD, message.convertToState(valueSelector));
-                                        break;
-                                    case SET_POINT:
-                                        updateState(CHANNEL_SET_POINT, message.convertToState(valueSelector));
-                                        break;
-                                    case SHUTTER:
-                                        updateState(CHANNEL_SHUTTER, message.convertToState(valueSelector));
-                                        break;
-                                    case SIGNAL_LEVEL:
-                                        updateState(CHANNEL_SIGNAL_LEVEL, convertSignalLevelToSystemWideLevel(
-                                                message.convertToState(valueSelector)));
-                                        break;
-                                    case STATUS:
-                                        updateState(CHANNEL_STATUS, message.convertToState(valueSelector));
-                                        break;
-                                    case TEMPERATURE:
-                                        updateState(CHANNEL_TEMPERATURE, message.convertToState(valueSelector));
-                                        break;
-                                    case CHILL_TEMPERATURE:
-                                        updateState(CHANNEL_CHILL_TEMPERATURE, message.convertToState(valueSelector));
-                                        break;
-                                    case TOTAL_AMP_HOUR:
-                                        updateState(CHANNEL_TOTAL_AMP_HOUR, message.convertToState(valueSelector));
-                                        break;
-                                    case TOTAL_USAGE:
-                                        updateState(CHANNEL_TOTAL_USAGE, message.convertToState(valueSelector));
-                                        break;
-                                    case UV:
-                                        updateState(CHANNEL_UV, message.convertToState(valueSelector));
-                                        break;
-                                    case VOLTAGE:
-                                        updateState(CHANNEL_VOLTAGE, message.convertToState(valueSelector));
-                                        break;
-                                    case WIND_DIRECTION:
-                                        updateState(CHANNEL_WIND_DIRECTION, message.convertToState(valueSelector));
-                                        break;
-                                    case AVG_WIND_SPEED:
-                                        updateState(CHANNEL_AVG_WIND_SPEED, message.convertToState(valueSelector));
-                                        break;
-                                    case WIND_SPEED:
-                                        updateState(CHANNEL_WIND_SPEED, message.convertToState(valueSelector));
-                                        break;
-                                    default:
-                                        logger.debug("Unsupported value selector '{}'", valueSelector);
-                                        break;
-                                }
-                            } catch (RFXComException e) {
-                                logger.trace("{} does not handle {}", valueSelector, message);
-                            }
-                        }
-                    }
+            logger.debug("Received message from bridge: {} message: {}", bridge, message);
 
+            updateStatus(ThingStatus.ONLINE);
+
+            for (Entry<RFXComValueSelector, String> channelSelector : channelSelectors.entrySet()) {
+                RFXComValueSelector valueSelector = channelSelector.getKey();
+                try {
+                    updateState(channelSelector.getValue(), convertToState(message, valueSelector));
+                } catch (RFXComException e) {
+                    logger.trace("{} does not handle {}", valueSelector, message);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComUnsupportedValueException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * The {@link RFXComDuplicateFilter} detects repeated frames. Many senders repeat every frame
+ * several times, the repeats only differ in the sequence number. A frame is a duplicate, if the
+ * same frame was received within the window before. It also counts the received and suppressed
+ * frames per packet type.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComDuplicateFilter {
+    private static final int SEQUENCE_NUMBER_INDEX = 3;
+    private static final int CLEANUP_SIZE = 256;
+
+    private final long window;
+    private final Map<ByteBuffer, Long> lastReceived = new HashMap<>();
+    private final long[] received = new long[256];
+    private final long[] suppressed = new long[256];
+
+    /**
+     * @param window The window in milliseconds, a window of 0 disables the filter.
+     */
+    public RFXComDuplicateFilter(long window) {
+        this.window = window;
+    }
+
+    public boolean isDuplicate(byte[] packet) {
+        return isDuplicate(packet, System.currentTimeMillis());
+    }
+
+    synchronized boolean isDuplicate(byte[] packet, long now) {
+        if (packet.length <= SEQUENCE_NUMBER_INDEX) {
+            return false;
+        }
+
+        int packetType = packet[1] & 0xFF;
+        received[packetType]++;
+
+        // Responses of the transceiver are never filtered
+        if (window <= 0 || packetType <= PacketType.TRANSMITTER_MESSAGE.toByte()) {
+            return false;
+        }
+
+        byte[] frame = packet.clone();
+        frame[SEQUENCE_NUMBER_INDEX] = 0;
+        Long last = lastReceived.put(ByteBuffer.wrap(frame), now);
+
+        if (lastReceived.size() > CLEANUP_SIZE) {
+            removeExpired(now);
+        }
+
+        if (last != null && now - last < window) {
+            suppressed[packetType]++;
+            return true;
+        }
+        return false;
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Long> iterator = lastReceived.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next() >= window) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized long getReceived(PacketType packetType) {
+        return received[packetType.toByte() & 0xFF];
+    }
+
+    public synchronized long getSuppressed(PacketType packetType) {
+        return suppressed[packetType.toByte() & 0xFF];
+    }
+
+    /**
+     * Return the number of received and suppressed frames per packet type, e.g.
+     * "LIGHTING2: 12 received, 8 suppressed".
+     */
+    public synchronized String getStatistics() {
+        StringBuilder statistics = new StringBuilder();
+        for (int packetType = 0; packetType < received.length; packetType++) {
+            if (received[packetType] == 0) {
+                continue;
+            }
+            if (statistics.length() > 0) {
+                statistics.append(", ");
+            }
+            try {
+                statistics.append(PacketType.fromByte(packetType));
+            } catch (RFXComUnsupportedValueException e) {
+                statistics.append(packetType);
+            }
+            statistics.append(": ").append(received[packetType]).append(" received, ")
+                    .append(suppressed[packetType]).append(" suppressed");
+        }
+        return statistics.toString();
+    }
+}
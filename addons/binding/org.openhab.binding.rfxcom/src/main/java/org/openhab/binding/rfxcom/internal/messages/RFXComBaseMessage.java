@@ -75,6 +75,14 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
         FS20(114),
         IO_LINES(128);
 
+        private static final PacketType[] LOOKUP = new PacketType[256];
+
+        static {
+            for (PacketType packetType : PacketType.values()) {
+                LOOKUP[packetType.packetType] = packetType;
+            }
+        }
+
         private final int packetType;
 
         PacketType(int packetType) {
@@ -86,10 +94,8 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
         }
 
         public static PacketType fromByte(int input) throws RFXComUnsupportedValueException {
-            for (PacketType packetType : PacketType.values()) {
-                if (packetType.packetType == input) {
-                    return packetType;
-                }
+            if (input >= 0 && input < LOOKUP.length && LOOKUP[input] != null) {
+                return LOOKUP[input];
             }
 
             throw new RFXComUnsupportedValueException(PacketType.class, input);
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link HomekitChangeListener}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HomekitChangeListenerTest {
+
+    private static final String ITEM_NAME = "Switch1";
+
+    private ItemRegistry itemRegistry;
+    private HomekitAccessoryUpdater updater;
+    private HomekitChangeListener changeListener;
+
+    @Before
+    public void setUp() {
+        itemRegistry = mock(ItemRegistry.class);
+        when(itemRegistry.getAll()).thenReturn(Collections.emptyList());
+        updater = new HomekitAccessoryUpdater();
+        updater.setNotificationInterval(0);
+        changeListener = new HomekitChangeListener();
+        changeListener.setUpdater(updater);
+        changeListener.setItemRegistry(itemRegistry);
+    }
+
+    @Test
+    public void stateChangeAfterItemUpdateNotifiesHomekitClients() throws InterruptedException {
+        SwitchItem oldItem = createSwitchItem();
+        changeListener.added(oldItem);
+        CountDownLatch notified = new CountDownLatch(1);
+        updater.subscribe(oldItem, notified::countDown);
+
+        // an update of the item replaces its instance, the accessory itself is kept
+        SwitchItem newItem = createSwitchItem();
+        changeListener.updated(oldItem, newItem);
+        newItem.setState(OnOffType.ON);
+
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stateChangeAfterReloadNotifiesHomekitClients() throws InterruptedException {
+        SwitchItem oldItem = createSwitchItem();
+        changeListener.added(oldItem);
+        CountDownLatch notified = new CountDownLatch(1);
+        updater.subscribe(oldItem, notified::countDown);
+
+        SwitchItem newItem = createSwitchItem();
+        when(itemRegistry.getAll()).thenReturn(Arrays.asList(newItem));
+        changeListener.allItemsChanged(Arrays.asList(ITEM_NAME));
+        newItem.setState(OnOffType.ON);
+
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+    }
+
+    private SwitchItem createSwitchItem() {
+        SwitchItem item = new SwitchItem(ITEM_NAME);
+        item.setLabel("Switch");
+        item.addTag("Switchable");
+        return item;
+    }
+}
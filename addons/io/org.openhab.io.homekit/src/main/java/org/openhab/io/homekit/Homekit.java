@@ -33,4 +33,19 @@ public interface Homekit {
      * @param allow boolean indicating whether or not to allow unauthenticated requests
      */
     void allowUnauthenticatedRequests(boolean allow);
+
+    /**
+     * Returns the number of change notifications sent to HomeKit clients.
+     *
+     * @return number of notifications sent
+     */
+    long getNotificationsSent();
+
+    /**
+     * Item changes of the same characteristic within the notification interval are coalesced into a single
+     * notification. Returns the number of changes which did not cause a notification of their own.
+     *
+     * @return number of notifications suppressed
+     */
+    long getNotificationsSuppressed();
 }
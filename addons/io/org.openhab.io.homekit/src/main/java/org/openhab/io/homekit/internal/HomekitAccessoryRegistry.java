@@ -8,6 +8,7 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -27,6 +28,9 @@ import com.beowulfe.hap.HomekitRoot;
  * Stores the created HomekitAccessories. GroupedAccessories are also held here
  * in a pre-created pending state until all required characteristics are found.
  *
+ * Changes of the accessories are collected until {@link #publishChanges()} is called,
+ * which increments the configuration index of the bridge once for all of them.
+ *
  * @author Andy Lintner
  */
 class HomekitAccessoryRegistry {
@@ -36,6 +40,9 @@ class HomekitAccessoryRegistry {
     private final Set<Integer> createdIds = new HashSet<>();
     private final Map<String, GroupedAccessory> pendingGroupedAccessories = new HashMap<>();
     private final List<HomekitTaggedItem> pendingCharacteristics = new LinkedList<>();
+    // the bridge starts with configuration index 1
+    private int configurationIndex = 1;
+    private boolean modified;
 
     private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryRegistry.class);
 
@@ -45,7 +52,10 @@ class HomekitAccessoryRegistry {
             HomekitAccessory accessory = i.next();
             if (accessory.getId() == taggedItem.getId()) {
                 logger.debug("Removed accessory {}", accessory.getId());
-                bridge.removeAccessory(accessory);
+                if (bridge != null) {
+                    bridge.removeAccessory(accessory);
+                    modified = true;
+                }
                 i.remove();
             }
         }
@@ -53,14 +63,39 @@ class HomekitAccessoryRegistry {
 
     public synchronized void clear() {
         while (!createdAccessories.isEmpty()) {
-            bridge.removeAccessory(createdAccessories.remove(0));
+            HomekitAccessory accessory = createdAccessories.remove(0);
+            if (bridge != null) {
+                bridge.removeAccessory(accessory);
+            }
         }
         createdIds.clear();
+        pendingGroupedAccessories.clear();
+        pendingCharacteristics.clear();
+    }
+
+    /**
+     * Tells the Homekit clients about the changed accessories, by incrementing the configuration index
+     * of the bridge. Does nothing if no accessory has changed.
+     */
+    public synchronized void publishChanges() {
+        if (!modified || bridge == null) {
+            return;
+        }
+        modified = false;
+        try {
+            bridge.setConfigurationIndex(++configurationIndex);
+            logger.debug("Published accessory changes with configuration index {}", configurationIndex);
+        } catch (IOException e) {
+            logger.warn("Could not publish accessory changes: {}", e.getMessage());
+        }
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
         this.bridge = bridge;
-        createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
+        modified = false;
+        if (bridge != null) {
+            createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
+        }
     }
 
     public synchronized void addRootDevice(HomekitAccessory accessory) {
@@ -103,6 +138,7 @@ class HomekitAccessoryRegistry {
         createdIds.add(accessory.getId());
         if (bridge != null) {
             bridge.addAccessory(accessory);
+            modified = true;
         }
         logger.debug("Added accessory {}", accessory.getId());
     }
@@ -10,7 +10,10 @@ package org.openhab.io.homekit.internal;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
@@ -26,12 +29,49 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Homekit clients are notified from a thread pool instead of the thread changing the
+ * item state. Changes of the same item/key pair within the notification interval are
+ * coalesced to a single notification, which is sent at the end of the interval. Homekit
+ * clients read the current state when notified, so no change gets lost.
+ *
+ * Subscriptions are kept by item name. The item registry replaces the item instance
+ * whenever an item is updated, so {@link #rebind(Item)} moves the subscriptions of
+ * the item to the new instance.
+ *
  * @author Andy Lintner
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREAD_POOL_NAME = "homekit";
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
+    private volatile long notificationInterval = HomekitSettings.DEFAULT_NOTIFICATION_INTERVAL;
+    private final AtomicLong notificationsSent = new AtomicLong();
+    private final AtomicLong notificationsSuppressed = new AtomicLong();
+
+    /**
+     * Sets the minimum time between two notifications of the same item/key pair
+     *
+     * @param notificationInterval interval in milliseconds, 0 to notify about every change
+     */
+    public void setNotificationInterval(long notificationInterval) {
+        this.notificationInterval = Math.max(0, notificationInterval);
+    }
+
+    /**
+     * @return the number of notifications sent to Homekit clients
+     */
+    public long getNotificationsSent() {
+        return notificationsSent.get();
+    }
+
+    /**
+     * @return the number of changes coalesced into a pending notification
+     */
+    public long getNotificationsSuppressed() {
+        return notificationsSuppressed.get();
+    }
 
     public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
         subscribe(item, null, callback);
@@ -41,18 +81,12 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        ItemKey itemKey = new ItemKey(item, key);
-        if (subscriptionsByName.containsKey(itemKey)) {
-            logger.error("Received duplicate subscription on {}", item.getName());
-        }
-        subscriptionsByName.compute(itemKey, (k, v) -> {
+        subscriptionsByName.compute(new ItemKey(item.getName(), key), (k, v) -> {
             if (v != null) {
                 logger.error("Received duplicate subscription on {}", item.getName());
-                unsubscribe(item, key);
+                v.cancel();
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
-            item.addStateChangeListener(subscription);
-            return subscription;
+            return new Subscription(item, callback);
         });
     }
 
@@ -64,30 +98,106 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        subscriptionsByName.computeIfPresent(new ItemKey(item, key), (k, v) -> {
-            item.removeStateChangeListener(v);
+        subscriptionsByName.computeIfPresent(new ItemKey(item.getName(), key), (k, v) -> {
+            v.cancel();
             return null;
         });
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    /**
+     * Moves the subscriptions of the item to the given instance of the item. Must be called
+     * whenever the item registry replaces an item, otherwise the subscriptions keep listening
+     * to the old instance, which is not changed anymore.
+     *
+     * @param item the current instance of the item
+     */
+    public void rebind(Item item) {
+        if (!(item instanceof GenericItem)) {
+            return;
+        }
+        for (Subscription subscription : subscriptionsByName.values()) {
+            if (subscription.itemName.equals(item.getName())) {
+                subscription.bind((GenericItem) item);
+            }
+        }
+    }
+
+    private class Subscription implements StateChangeListener {
+        private final String itemName;
+        private final HomekitCharacteristicChangeCallback callback;
+
+        // guarded by this
+        private GenericItem item;
+        private boolean scheduled;
+        private boolean cancelled;
+        private long lastSent;
+
+        public Subscription(GenericItem item, HomekitCharacteristicChangeCallback callback) {
+            this.itemName = item.getName();
+            this.callback = callback;
+            this.item = item;
+            item.addStateChangeListener(this);
+        }
 
         @Override
-        void stateChanged(Item item, State oldState, State newState);
+        public void stateChanged(Item item, State oldState, State newState) {
+            long delay;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (scheduled) {
+                    notificationsSuppressed.incrementAndGet();
+                    return;
+                }
+                scheduled = true;
+                delay = Math.max(0, lastSent + notificationInterval - System.currentTimeMillis());
+            }
+            ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME).schedule(this::send, delay, TimeUnit.MILLISECONDS);
+        }
 
         @Override
-        default void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
+
+        private void send() {
+            synchronized (this) {
+                scheduled = false;
+                if (cancelled) {
+                    return;
+                }
+                lastSent = System.currentTimeMillis();
+            }
+            notificationsSent.incrementAndGet();
+            try {
+                callback.changed();
+            } catch (Exception e) {
+                logger.warn("Could not notify Homekit clients about {}: {}", itemName, e.getMessage(), e);
+            }
+        }
+
+        public synchronized void bind(GenericItem newItem) {
+            if (cancelled || newItem == item) {
+                return;
+            }
+            item.removeStateChangeListener(this);
+            item = newItem;
+            item.addStateChangeListener(this);
+        }
+
+        public synchronized void cancel() {
+            cancelled = true;
+            item.removeStateChangeListener(this);
+        }
     }
 
     private static class ItemKey {
-        public GenericItem item;
+        public String itemName;
         public String key;
 
-        public ItemKey(GenericItem item, String key) {
-            this.item = item;
+        public ItemKey(String itemName, String key) {
+            this.itemName = itemName;
             this.key = key;
         }
 
@@ -95,7 +205,7 @@ public class HomekitAccessoryUpdater {
         public int hashCode() {
             final int prime = 31;
             int result = 1;
-            result = prime * result + ((item == null) ? 0 : item.hashCode());
+            result = prime * result + ((itemName == null) ? 0 : itemName.hashCode());
             result = prime * result + ((key == null) ? 0 : key.hashCode());
             return result;
         }
@@ -112,11 +222,11 @@ public class HomekitAccessoryUpdater {
                 return false;
             }
             ItemKey other = (ItemKey) obj;
-            if (item == null) {
-                if (other.item != null) {
+            if (itemName == null) {
+                if (other.itemName != null) {
                     return false;
                 }
-            } else if (!item.equals(other.item)) {
+            } else if (!itemName.equals(other.itemName)) {
                 return false;
             }
             if (key == null) {
@@ -9,6 +9,11 @@
 package org.openhab.io.homekit.internal;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
@@ -23,6 +28,11 @@ import com.beowulfe.hap.HomekitRoot;
  * Listens for changes to the item registry. When changes are detected, check
  * for Homekit tags and, if present, add the items to the HomekitAccessoryRegistry.
  *
+ * Only accessories of items whose tags, label, type or groups changed are removed
+ * and added again, all other accessories stay untouched. The changes of a single
+ * registry event, including a reload of all items, are published to the bridge as
+ * one configuration change.
+ *
  * @author Andy Lintner
  */
 public class HomekitChangeListener implements ItemRegistryChangeListener {
@@ -32,40 +42,59 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     private Logger logger = LoggerFactory.getLogger(HomekitChangeListener.class);
     private final HomekitAccessoryRegistry accessoryRegistry = new HomekitAccessoryRegistry();
     private HomekitSettings settings;
+    // the tagged items with an accessory or characteristic, by item name
+    private final Map<String, HomekitTaggedItem> taggedItems = new HashMap<>();
 
     @Override
     public synchronized void added(Item item) {
-        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
-        if (taggedItem.isTagged()) {
-            if (taggedItem.isRootDevice()) {
-                createRootDevice(taggedItem);
-            }
-            if (taggedItem.isCharacteristic()) {
-                createCharacteristic(taggedItem);
-            }
-        }
+        addItem(item);
+        accessoryRegistry.publishChanges();
     }
 
     @Override
-    public void allItemsChanged(Collection<String> oldItemNames) {
-        clearAccessories();
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        Set<String> removedItemNames = new HashSet<>(taggedItems.keySet());
+        for (Item item : itemRegistry.getAll()) {
+            removedItemNames.remove(item.getName());
+            HomekitTaggedItem taggedItem = taggedItems.get(item.getName());
+            if (taggedItem == null) {
+                addItem(item);
+            } else if (isUnchanged(taggedItem.getItem(), item)) {
+                rebindItem(taggedItem, item);
+            } else {
+                removeItem(taggedItem.getItem());
+                addItem(item);
+            }
+        }
+        for (String itemName : removedItemNames) {
+            removeItem(taggedItems.get(itemName).getItem());
+        }
+        accessoryRegistry.publishChanges();
     }
 
     @Override
     public synchronized void removed(Item item) {
-        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
-        if (taggedItem.isTagged()) {
-            accessoryRegistry.remove(taggedItem);
-        }
+        removeItem(item);
+        accessoryRegistry.publishChanges();
     }
 
     @Override
-    public void updated(Item oldElement, Item element) {
-        removed(oldElement);
-        added(element);
+    public synchronized void updated(Item oldElement, Item element) {
+        HomekitTaggedItem taggedItem = taggedItems.get(oldElement.getName());
+        if (taggedItem == null && element.getTags().isEmpty()) {
+            return;
+        }
+        if (taggedItem != null && isUnchanged(taggedItem.getItem(), element)) {
+            rebindItem(taggedItem, element);
+            return;
+        }
+        removeItem(oldElement);
+        addItem(element);
+        accessoryRegistry.publishChanges();
     }
 
     public synchronized void clearAccessories() {
+        taggedItems.clear();
         accessoryRegistry.clear();
     }
 
@@ -76,7 +105,8 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     public synchronized void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
         itemRegistry.addRegistryChangeListener(this);
-        itemRegistry.getAll().forEach(item -> added(item));
+        itemRegistry.getAll().forEach(item -> addItem(item));
+        accessoryRegistry.publishChanges();
     }
 
     public void setUpdater(HomekitAccessoryUpdater updater) {
@@ -85,6 +115,11 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setNotificationInterval(settings.getNotificationInterval());
+    }
+
+    public HomekitAccessoryUpdater getUpdater() {
+        return updater;
     }
 
     public void stop() {
@@ -93,6 +128,48 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         }
     }
 
+    private void addItem(Item item) {
+        // most items have no tags at all
+        if (item.getTags().isEmpty()) {
+            return;
+        }
+        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
+        if (taggedItem.isTagged()) {
+            taggedItems.put(item.getName(), taggedItem);
+            if (taggedItem.isRootDevice()) {
+                createRootDevice(taggedItem);
+            }
+            if (taggedItem.isCharacteristic()) {
+                createCharacteristic(taggedItem);
+            }
+        }
+    }
+
+    private void removeItem(Item item) {
+        HomekitTaggedItem taggedItem = taggedItems.remove(item.getName());
+        if (taggedItem != null) {
+            accessoryRegistry.remove(taggedItem);
+        }
+    }
+
+    /**
+     * Keeps the accessory of the item, but moves the tagged item and the subscriptions of
+     * Homekit clients to the new instance of the item.
+     */
+    private void rebindItem(HomekitTaggedItem taggedItem, Item item) {
+        taggedItem.setItem(item);
+        updater.rebind(item);
+    }
+
+    /**
+     * Checks whether the accessory of the old item would be created the same way from the new item
+     */
+    private boolean isUnchanged(Item oldItem, Item item) {
+        return oldItem.getClass() == item.getClass() && Objects.equals(oldItem.getLabel(), item.getLabel())
+                && Objects.equals(oldItem.getTags(), item.getTags())
+                && Objects.equals(new HashSet<>(oldItem.getGroupNames()), new HashSet<>(item.getGroupNames()));
+    }
+
     private void createRootDevice(HomekitTaggedItem taggedItem) {
         try {
             logger.debug("Adding homekit device {}", taggedItem.getItem().getName());
@@ -30,7 +30,7 @@ public class HomekitTaggedItem {
 
     private HomekitDeviceType homekitDeviceType;
     private HomekitCharacteristicType homekitCharacteristicType;
-    private final Item item;
+    private volatile Item item;
     private Logger logger = LoggerFactory.getLogger(HomekitTaggedItem.class);
     private final int id;
 
@@ -95,6 +95,14 @@ public class HomekitTaggedItem {
         return item;
     }
 
+    /**
+     * Points this tagged item to a new instance of the same item, which the item registry
+     * creates when the item is updated.
+     */
+    void setItem(Item item) {
+        this.item = item;
+    }
+
     public int getId() {
         return id;
     }
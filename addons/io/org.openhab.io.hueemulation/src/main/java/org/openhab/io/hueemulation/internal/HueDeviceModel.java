@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Keeps the Hue devices of all items tagged for voice control up to date.
+ *
+ * The devices are updated incrementally on item registry changes and item state changes. Requests read an immutable
+ * {@link Snapshot} of the devices without locking, a new snapshot including the serialized device list is only built
+ * after a device has changed. The item file, which maps the Hue ids to the item names, is only written if a device
+ * was added or removed.
+ *
+ * @author agent - Initial Contribution
+ *
+ */
+public class HueDeviceModel implements ItemRegistryChangeListener {
+    private Logger logger = LoggerFactory.getLogger(HueDeviceModel.class);
+    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
+    private static final Type ITEM_MAP_TYPE = new TypeToken<Map<Integer, String>>() {
+    }.getType();
+
+    /**
+     * An immutable view of all devices at one version
+     */
+    public static class Snapshot {
+        public final long version;
+        // Hue devices by their numeric id
+        public final SortedMap<Integer, HueDevice> devices;
+        // item names by the numeric id of their device
+        public final Map<Integer, String> itemNames;
+        // the devices as JSON object, keyed by their id
+        public final String json;
+
+        private Snapshot(long version, SortedMap<Integer, HueDevice> devices, Map<Integer, String> itemNames,
+                String json) {
+            this.version = version;
+            this.devices = Collections.unmodifiableSortedMap(devices);
+            this.itemNames = Collections.unmodifiableMap(itemNames);
+            this.json = json;
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final ItemRegistry itemRegistry;
+    private final File itemFile;
+
+    // all fields below are guarded by this
+    // deviceMap maps a Hue numeric id to a Item Name, ordered by that id
+    private final TreeMap<Integer, String> deviceMap = new TreeMap<>();
+    private final Map<String, Integer> deviceIds = new HashMap<>();
+    private final TreeMap<Integer, HueDevice> devices = new TreeMap<>();
+
+    // incremented on every change of the devices
+    private volatile long version;
+    private volatile Snapshot snapshot;
+
+    public HueDeviceModel(ItemRegistry itemRegistry, File itemFile) {
+        this.itemRegistry = itemRegistry;
+        this.itemFile = itemFile;
+    }
+
+    /**
+     * Loads the ids of the devices from the item file
+     */
+    public synchronized void load() {
+        if (!itemFile.exists()) {
+            return;
+        }
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new FileReader(itemFile));
+            Map<Integer, String> tmpMap = gson.fromJson(reader, ITEM_MAP_TYPE);
+            if (tmpMap != null) {
+                for (Map.Entry<Integer, String> entry : tmpMap.entrySet()) {
+                    deviceMap.put(entry.getKey(), entry.getValue());
+                    deviceIds.put(entry.getValue(), entry.getKey());
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            logger.error("Could not read item cache", e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Syncs the devices with all items of the registry
+     */
+    public synchronized void sync() {
+        // if we modify our internal map, persist it to disk
+        boolean modified = false;
+
+        Map<String, Item> taggedItems = new HashMap<>();
+        for (Item item : itemRegistry.getItems()) {
+            if (isTagged(item)) {
+                taggedItems.put(item.getName(), item);
+                modified |= addDevice(item);
+            }
+        }
+
+        // clean up removed entries
+        Iterator<Map.Entry<Integer, String>> it = deviceMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, String> entry = it.next();
+            if (!taggedItems.containsKey(entry.getValue())) {
+                it.remove();
+                deviceIds.remove(entry.getValue());
+                devices.remove(entry.getKey());
+                modified = true;
+            }
+        }
+
+        version++;
+        if (modified) {
+            save();
+        }
+    }
+
+    /**
+     * Returns the current devices, a new snapshot is built if a device has changed since the last call.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version != version) {
+                TreeMap<Integer, HueDevice> devicesCopy = new TreeMap<>(devices);
+                current = new Snapshot(version, devicesCopy, new HashMap<>(deviceMap), gson.toJson(devicesCopy));
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Updates the device of the item after its state has changed
+     */
+    public void stateChanged(String itemName) {
+        Integer id;
+        synchronized (this) {
+            id = deviceIds.get(itemName);
+        }
+        if (id == null) {
+            return;
+        }
+        try {
+            Item item = itemRegistry.getItem(itemName);
+            synchronized (this) {
+                if (id.equals(deviceIds.get(itemName))) {
+                    devices.put(id, itemToDevice(item, id));
+                    version++;
+                }
+            }
+        } catch (ItemNotFoundException e) {
+            logger.debug("Could not find item {}", itemName);
+        }
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (isTagged(item)) {
+            boolean modified = addDevice(item);
+            version++;
+            if (modified) {
+                save();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        if (removeDevice(item.getName())) {
+            version++;
+            save();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        boolean modified;
+        if (isTagged(item)) {
+            // label or state may have changed as well
+            modified = addDevice(item);
+        } else {
+            modified = removeDevice(item.getName());
+        }
+        version++;
+        if (modified) {
+            save();
+        }
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        sync();
+    }
+
+    /**
+     * Adds or updates the device of the item
+     *
+     * @return true if the item got a new id
+     */
+    private boolean addDevice(Item item) {
+        boolean added = false;
+        Integer id = deviceIds.get(item.getName());
+        if (id == null) {
+            // hue devices are assigned a numeric number starting with 1, if a device is
+            // removed that number is not used again. Not sure how high this id can get
+            // not worrying about it here
+            id = deviceMap.size() == 0 ? 1 : new Integer(deviceMap.lastKey().intValue() + 1);
+            deviceMap.put(id, item.getName());
+            deviceIds.put(item.getName(), id);
+            added = true;
+        }
+        devices.put(id, itemToDevice(item, id));
+        return added;
+    }
+
+    /**
+     * Removes the device of the item
+     *
+     * @return true if there was a device
+     */
+    private boolean removeDevice(String itemName) {
+        Integer id = deviceIds.remove(itemName);
+        if (id == null) {
+            return false;
+        }
+        deviceMap.remove(id);
+        devices.remove(id);
+        return true;
+    }
+
+    private boolean isTagged(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     */
+    private HueDevice itemToDevice(Item item, Integer key) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), key);
+        return d;
+    }
+
+    private void save() {
+        JsonWriter writer = null;
+        try {
+            itemFile.getParentFile().mkdirs();
+            writer = new JsonWriter(new FileWriter(itemFile));
+            gson.toJson(deviceMap, ITEM_MAP_TYPE, writer);
+        } catch (IOException e) {
+            logger.error("Could not persist item cache", e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+}
@@ -11,22 +11,19 @@ package org.openhab.io.hueemulation.internal;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
 
 import javax.servlet.ServletException;
@@ -35,19 +32,21 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.events.GroupItemStateChangedEvent;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
-import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent;
 import org.eclipse.smarthome.core.library.types.HSBType;
-import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.types.Command;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
+import org.openhab.io.hueemulation.internal.HueDeviceModel.Snapshot;
 import org.openhab.io.hueemulation.internal.api.HueCreateUser;
 import org.openhab.io.hueemulation.internal.api.HueDataStore;
 import org.openhab.io.hueemulation.internal.api.HueDevice;
@@ -60,9 +59,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
 
 /**
  * Emulates A Hue compatible HTTP API server
@@ -72,7 +68,7 @@ import com.google.gson.stream.JsonWriter;
  *
  */
 @SuppressWarnings("serial")
-public class HueEmulationServlet extends HttpServlet {
+public class HueEmulationServlet extends HttpServlet implements EventSubscriber {
     private Logger logger = LoggerFactory.getLogger(HueEmulationServlet.class);
     private static final String CONFIG_PAIRING_ENABLED = "pairingEnabled";
     private static final String CONFIG_DISCOVERY_IP = "discoveryIp";
@@ -85,13 +81,14 @@ public class HueEmulationServlet extends HttpServlet {
     private static final String CHARSET = "utf-8";
     private static final String NEW_CLIENT_RESP = "[{\"success\":{\"username\": \"%s\"}}]";
     private static final String STATE_RESP = "[{\"success\":{\"/lights/%s/state/on\":%s}}]";
+    private static final Set<String> SUBSCRIBED_EVENT_TYPES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(ItemStateChangedEvent.TYPE, GroupItemStateChangedEvent.TYPE)));
     private static final File USER_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "usernames");
     private static final File UDN_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "udn");
     private static final File ITEM_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "items");
-    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
     private Gson gson = new Gson();
     private HttpService httpService;
     private ItemRegistry itemRegistry;
@@ -103,8 +100,8 @@ public class HueEmulationServlet extends HttpServlet {
     private boolean pairingEnabled = false;
     // list of valid Hue API user ids
     private List<String> userNames = new ArrayList<>();
-    // deviceMap maps a Hue numeric id to a Item Name, ordered by that id
-    private TreeMap<Integer, String> deviceMap = new TreeMap<>();
+    // the Hue devices of all tagged items, null while the service is not started
+    private volatile HueDeviceModel deviceModel;
 
     protected void activate(Map<String, Object> config) {
         modified(config);
@@ -123,21 +120,12 @@ public class HueEmulationServlet extends HttpServlet {
                 }
             }
 
-            // load item list from disk
-            if (ITEM_FILE.exists()) {
-                JsonReader reader = null;
-                try {
-                    reader = new JsonReader(new FileReader(ITEM_FILE));
-                    LinkedHashMap<Integer, String> tmpMap = gson.fromJson(reader,
-                            new TypeToken<Map<Integer, String>>() {
-                            }.getType());
-                    if (tmpMap != null) {
-                        deviceMap.putAll(tmpMap);
-                    }
-                } finally {
-                    IOUtils.closeQuietly(reader);
-                }
-            }
+            // load item list from disk and keep it in sync with the item registry
+            HueDeviceModel model = new HueDeviceModel(itemRegistry, ITEM_FILE);
+            model.load();
+            itemRegistry.addRegistryChangeListener(model);
+            model.sync();
+            deviceModel = model;
             logger.info("Started Hue Emulation service at " + PATH);
         } catch (Exception e) {
             logger.error("Could not start Hue Emulation service: {}", e.getMessage(), e);
@@ -183,6 +171,30 @@ public class HueEmulationServlet extends HttpServlet {
         if (disco != null) {
             disco.shutdown();
         }
+        HueDeviceModel model = deviceModel;
+        if (model != null) {
+            deviceModel = null;
+            itemRegistry.removeRegistryChangeListener(model);
+        }
+    }
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return SUBSCRIBED_EVENT_TYPES;
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        HueDeviceModel model = deviceModel;
+        // group item state changes are ItemStateChangedEvents as well
+        if (model != null && event instanceof ItemStateChangedEvent) {
+            model.stateChanged(((ItemStateChangedEvent) event).getItemName());
+        }
     }
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
@@ -237,6 +249,13 @@ public class HueEmulationServlet extends HttpServlet {
             }
 
             // All other API requests
+            HueDeviceModel model = deviceModel;
+            if (model == null) {
+                apiServerError(req, out, HueErrorResponse.INTERNAL_ERROR, "Hue Emulation service is not started");
+                return;
+            }
+            Snapshot snapshot = model.getSnapshot();
+
             String[] pathParts = path.replace("/api/", "").split("/");
 
             if (pathParts.length > 0) {
@@ -257,7 +276,7 @@ public class HueEmulationServlet extends HttpServlet {
                     /**
                      * /api/{username}
                      */
-                    apiDataStore(req, resp);
+                    apiDataStore(snapshot, req, out);
                 } else {
                     String function = pathParts[1];
                     if ("lights".equals(function)) {
@@ -266,19 +285,19 @@ public class HueEmulationServlet extends HttpServlet {
                                 /**
                                  * /api/{username}/lights
                                  */
-                                apiLights(req, out);
+                                apiLights(snapshot, req, out);
                                 break;
                             case 3:
                                 /**
                                  * /api/{username}/lights/{id}
                                  */
-                                apiLight(pathParts[2], req, out);
+                                apiLight(snapshot, pathParts[2], req, out);
                                 break;
                             case 4:
                                 /**
                                  * /api/{username}/lights/{id}/state
                                  */
-                                apiState(pathParts[2], req, out);
+                                apiState(snapshot, pathParts[2], req, out);
                                 break;
                             default:
                                 break;
@@ -296,7 +315,7 @@ public class HueEmulationServlet extends HttpServlet {
                                  * /api/{username}/group/{id}
                                  */
                                 if ("0".equals(pathParts[2])) {
-                                    apiGroupZero(req, out);
+                                    apiGroupZero(snapshot, req, out);
                                 }
                                 break;
                             default:
@@ -313,14 +332,15 @@ public class HueEmulationServlet extends HttpServlet {
     /**
      * Hue API call to set the state of a light
      */
-    private void apiState(String id, HttpServletRequest req, PrintWriter out) throws IOException {
+    private void apiState(Snapshot snapshot, String id, HttpServletRequest req, PrintWriter out)
+            throws IOException {
         if (!req.getMethod().equals(METHOD_PUT)) {
             apiServerError(req, out, HueErrorResponse.METHOD_NOT_AVAILABLE, "Only PUT allowed for this resource");
             return;
         }
         try {
             // will throw exception if not found
-            Item item = itemRegistry.getItem(deviceMap.get(new Integer(id)));
+            Item item = itemRegistry.getItem(snapshot.itemNames.get(new Integer(id)));
             HueState state = gson.fromJson(req.getReader(), HueState.class);
             HSBType hsb = state.toHSBType();
             logger.debug("HuState {}", state);
@@ -364,8 +384,9 @@ public class HueEmulationServlet extends HttpServlet {
     /**
      * Hue API call to get the state of a single light
      */
-    private void apiLight(String id, HttpServletRequest req, PrintWriter out) throws IOException {
-        HueDevice device = getHueDevices().get(new Integer(id));
+    private void apiLight(Snapshot snapshot, String id, HttpServletRequest req, PrintWriter out)
+            throws IOException {
+        HueDevice device = snapshot.devices.get(new Integer(id));
 
         if (device == null) {
             logger.error("\"Could not find light for id {}. ", id);
@@ -379,16 +400,16 @@ public class HueEmulationServlet extends HttpServlet {
     /**
      * Hue API call to get a listing of all lights
      */
-    public void apiLights(HttpServletRequest req, PrintWriter out) throws IOException {
-        out.write(gson.toJson(getHueDevices()));
+    public void apiLights(Snapshot snapshot, HttpServletRequest req, PrintWriter out) throws IOException {
+        out.write(snapshot.json);
     }
 
     /**
      * Hue API call to get a listing of Group 0
      */
-    public void apiGroupZero(HttpServletRequest req, PrintWriter out) throws IOException {
+    public void apiGroupZero(Snapshot snapshot, HttpServletRequest req, PrintWriter out) throws IOException {
         List<String> lights = new LinkedList<String>();
-        for (Integer key : deviceMap.keySet()) {
+        for (Integer key : snapshot.devices.keySet()) {
             lights.add(key.toString());
         }
         HueState action = new HueState();
@@ -398,10 +419,9 @@ public class HueEmulationServlet extends HttpServlet {
     /**
      * HUE API call to get the Data Store of the bridge (only lights supported for now)
      */
-    public void apiDataStore(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        PrintWriter out = resp.getWriter();
+    public void apiDataStore(Snapshot snapshot, HttpServletRequest req, PrintWriter out) throws IOException {
         HueDataStore ds = new HueDataStore();
-        ds.lights = getHueDevices();
+        ds.lights = snapshot.devices;
         out.write(gson.toJson(ds));
     }
 
@@ -465,96 +485,6 @@ public class HueEmulationServlet extends HttpServlet {
         }
     }
 
-    /**
-     * Converts an Item to a HueDevice
-     */
-    private HueDevice itemToDevice(Item item, Integer key) {
-        State itemState = item.getState();
-        HueState hueState;
-        if (itemState instanceof HSBType) {
-            HSBType color = (HSBType) itemState;
-            hueState = new HueState(color);
-        } else if (itemState instanceof DecimalType) {
-            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
-            hueState = new HueState(bri);
-        } else if (itemState instanceof OnOffType) {
-            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
-            hueState = new HueState(bri);
-        } else {
-            hueState = new HueState((short) 0);
-        }
-
-        HueDevice d = new HueDevice(hueState, item.getLabel(), key);
-        return d;
-    }
-
-    /**
-     * Gets and syncs all items tagged for voice.
-     */
-    private synchronized TreeMap<Integer, HueDevice> getHueDevices() {
-        TreeMap<Integer, HueDevice> returnMap = new TreeMap<Integer, HueDevice>();
-        HashMap<String, Item> taggedItems = new HashMap<String, Item>();
-
-        // if we modify our internal map, persist it to disk
-        boolean modified = false;
-
-        // get all tagged items
-        for (Item item : itemRegistry.getItems()) {
-            for (String tag : item.getTags()) {
-                if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
-                    taggedItems.put(item.getName(), item);
-                    if (!deviceMap.containsValue(item.getName())) {
-                        // hue devices are assigned a numeric number starting with 1, if a device is
-                        // removed that number is not used again. Not sure how high this id can get
-                        // not worrying about it here
-                        Integer next = deviceMap.size() == 0 ? 1 : new Integer(deviceMap.lastKey().intValue() + 1);
-                        deviceMap.put(next, item.getName());
-                        modified = true;
-                    }
-                    break;
-                }
-            }
-        }
-
-        Set<Integer> keysToRemove = new HashSet<>();
-
-        // clean up removed entries
-        for (Map.Entry<Integer, String> entry : deviceMap.entrySet()) {
-            String itemName = entry.getValue();
-            if (!taggedItems.containsKey(itemName)) {
-                keysToRemove.add(entry.getKey());
-                modified = true;
-            }
-        }
-
-        for (Integer key : keysToRemove) {
-            deviceMap.remove(key);
-        }
-
-        // for each entry, lookup the item and convert it to a hue device
-        for (Integer key : deviceMap.keySet()) {
-            try {
-                returnMap.put(key, itemToDevice(itemRegistry.getItem(deviceMap.get(key)), key));
-            } catch (ItemNotFoundException e) {
-                logger.warn("Could not find item", e);
-            }
-        }
-
-        if (modified) {
-            JsonWriter writer = null;
-            try {
-                writer = new JsonWriter(new FileWriter(ITEM_FILE));
-                gson.toJson(deviceMap, new TypeToken<Map<Integer, String>>() {
-                }.getType(), writer);
-            } catch (IOException e) {
-                logger.error("Could not persist item cache", e);
-            } finally {
-                IOUtils.closeQuietly(writer);
-            }
-        }
-        return returnMap;
-    }
-
     /**
      * Checks if the username exists in our user list
      */
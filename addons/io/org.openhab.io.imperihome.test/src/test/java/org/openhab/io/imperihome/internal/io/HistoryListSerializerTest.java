@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.io;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.imperihome.internal.model.HistoryList;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Tests cases for {@link HistoryListSerializer}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryListSerializerTest {
+
+    private static final String JSON = "{\"values\":[{\"date\":1000,\"value\":20},{\"date\":2000,\"value\":20.5}]}";
+
+    private Gson gson;
+
+    @Before
+    public void setUp() {
+        gson = new GsonBuilder().registerTypeAdapter(HistoryList.class, new HistoryListSerializer()).create();
+    }
+
+    @Test
+    public void writeSkipsInvalidValues() {
+        HistoryList historyList = new HistoryList();
+        historyList.add(1000, 20);
+        historyList.add(1500, Double.NaN);
+        historyList.add(2000, 20.5);
+
+        assertEquals(JSON, gson.toJson(historyList));
+    }
+
+    @Test
+    public void readReturnsWrittenValues() {
+        HistoryList historyList = gson.fromJson(JSON, HistoryList.class);
+
+        assertEquals(2, historyList.size());
+        assertEquals(1000, historyList.getDate(0));
+        assertEquals(20, historyList.getValue(0), 0);
+        assertEquals(2000, historyList.getDate(1));
+        assertEquals(20.5, historyList.getValue(1), 0);
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link HistoryList}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryListTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void aggregateReturnsSmallListUnchanged() {
+        HistoryList historyList = createHistoryList(100, 1, 200, 2, 300, 3);
+
+        assertSame(historyList, historyList.aggregate(0, 1000, 3));
+        assertSame(historyList, historyList.aggregate(0, 1000, 10));
+        assertEquals(3, historyList.size());
+    }
+
+    @Test
+    public void aggregateClampsValuesOutsideRangeIntoFirstAndLastBucket() {
+        HistoryList historyList = createHistoryList(500, 1, 1000, 3, 1999, 5, 2500, 7);
+
+        HistoryList result = historyList.aggregate(1000, 2000, 2);
+
+        assertEquals(2, result.size());
+        assertEquals(750, result.getDate(0));
+        assertEquals(2, result.getValue(0), DELTA);
+        assertEquals(2250, result.getDate(1));
+        assertEquals(6, result.getValue(1), DELTA);
+    }
+
+    @Test
+    public void aggregateAveragesBucketsAndSkipsEmptyBuckets() {
+        HistoryList historyList = createHistoryList(10, 1, 30, 2, 50, 6, 250, 4, 270, 8);
+
+        HistoryList result = historyList.aggregate(0, 400, 4);
+
+        assertEquals(2, result.size());
+        assertEquals(30, result.getDate(0));
+        assertEquals(3, result.getValue(0), DELTA);
+        assertEquals(260, result.getDate(1));
+        assertEquals(6, result.getValue(1), DELTA);
+    }
+
+    private HistoryList createHistoryList(double... datesAndValues) {
+        HistoryList historyList = new HistoryList();
+        for (int i = 0; i < datesAndValues.length; i += 2) {
+            historyList.add((long) datesAndValues[i], datesAndValues[i + 1]);
+        }
+        return historyList;
+    }
+
+}
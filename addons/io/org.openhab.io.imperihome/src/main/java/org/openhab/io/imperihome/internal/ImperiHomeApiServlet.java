@@ -27,11 +27,14 @@ import org.openhab.io.imperihome.internal.action.ActionRegistry;
 import org.openhab.io.imperihome.internal.handler.DeviceActionHandler;
 import org.openhab.io.imperihome.internal.handler.DeviceHistoryHandler;
 import org.openhab.io.imperihome.internal.handler.DevicesListHandler;
+import org.openhab.io.imperihome.internal.handler.DevicesListHandler.SerializedDeviceList;
 import org.openhab.io.imperihome.internal.handler.RoomListHandler;
 import org.openhab.io.imperihome.internal.handler.SystemHandler;
 import org.openhab.io.imperihome.internal.io.DeviceParametersSerializer;
 import org.openhab.io.imperihome.internal.io.DeviceTypeSerializer;
+import org.openhab.io.imperihome.internal.io.HistoryListSerializer;
 import org.openhab.io.imperihome.internal.io.ParamTypeSerializer;
+import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.DeviceType;
 import org.openhab.io.imperihome.internal.model.param.DeviceParameters;
 import org.openhab.io.imperihome.internal.model.param.ParamType;
@@ -95,6 +98,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
         gsonBuilder.registerTypeAdapter(DeviceType.class, new DeviceTypeSerializer());
         gsonBuilder.registerTypeAdapter(ParamType.class, new ParamTypeSerializer());
         gsonBuilder.registerTypeAdapter(DeviceParameters.class, new DeviceParametersSerializer());
+        gsonBuilder.registerTypeAdapter(HistoryList.class, new HistoryListSerializer());
         gson = gsonBuilder.create();
     }
 
@@ -111,7 +115,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
         actionRegistry = new ActionRegistry(eventPublisher, deviceRegistry);
         itemProcessor = new ItemProcessor(itemRegistry, deviceRegistry, actionRegistry, imperiHomeConfig);
         roomListHandler = new RoomListHandler(deviceRegistry);
-        devicesListHandler = new DevicesListHandler(deviceRegistry);
+        devicesListHandler = new DevicesListHandler(deviceRegistry, gson);
         deviceActionHandler = new DeviceActionHandler(deviceRegistry);
         deviceHistoryHandler = new DeviceHistoryHandler(deviceRegistry, persistenceServiceRegistry);
 
@@ -201,7 +205,8 @@ public class ImperiHomeApiServlet extends HttpServlet {
         if (URL_PATTERN_ROOMS.matcher(path).matches()) {
             response = roomListHandler.handle(req);
         } else if (URL_PATTERN_DEVICES.matcher(path).matches()) {
-            response = devicesListHandler.handle(req);
+            serveDeviceList(req, resp);
+            return;
         } else if (actionMatcher.matches()) {
             deviceActionHandler.handle(req, actionMatcher);
         } else if (historyMatcher.matches()) {
@@ -212,7 +217,23 @@ public class ImperiHomeApiServlet extends HttpServlet {
             logger.warn("Unrecognized request: {}", path);
         }
 
-        resp.getWriter().write(gson.toJson(response));
+        gson.toJson(response, resp.getWriter());
+    }
+
+    /**
+     * Serves the cached device list, or only status 304 if the client already has the current list.
+     */
+    private void serveDeviceList(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        SerializedDeviceList deviceList = devicesListHandler.handle(req);
+
+        resp.setHeader("ETag", deviceList.getETag());
+        resp.setHeader("Cache-Control", "no-cache");
+        if (deviceList.getETag().equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        resp.getWriter().write(deviceList.getJson());
     }
 
     private void setHeaders(HttpServletResponse response) {
@@ -221,7 +242,9 @@ public class ImperiHomeApiServlet extends HttpServlet {
         response.setHeader("Access-Control-Allow-Origin", "*");
         response.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS, DELETE, PUT");
         response.setHeader("Access-Control-Max-Age", "3600");
-        response.setHeader("Access-Control-Allow-Headers", "Origin, X-Requested-With, Content-Type, Accept");
+        response.setHeader("Access-Control-Allow-Headers",
+                "Origin, X-Requested-With, Content-Type, Accept, If-None-Match");
+        response.setHeader("Access-Control-Expose-Headers", "ETag");
     }
 
 }
@@ -12,8 +12,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,7 +25,6 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
-import org.openhab.io.imperihome.internal.model.HistoryItem;
 import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
@@ -33,7 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Device history request handler.
+ * Device history request handler. Aggregates the history to at most {@link #MAX_VALUES} values and caches the result
+ * for {@link #CACHE_TTL} milliseconds, as the app requests the same ranges again.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -41,11 +41,37 @@ public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    /** Maximum number of values in a response, enough for the width of a graph */
+    private static final int MAX_VALUES = 500;
+
+    private static final long CACHE_TTL = 30000;
+    private static final int CACHE_SIZE = 32;
+
+    private static class CachedHistory {
+        final HistoryList historyList;
+        final long created;
+
+        CachedHistory(HistoryList historyList, long created) {
+            this.historyList = historyList;
+            this.created = created;
+        }
+    }
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
 
+    // Access ordered, the least recently used entry comes first
+    private final Map<String, CachedHistory> cache = new LinkedHashMap<String, CachedHistory>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
@@ -81,7 +107,21 @@ public class DeviceHistoryHandler {
             return null;
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        String cacheKey = device.getItemName() + ':' + start + ':' + end;
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedHistory cached = cache.get(cacheKey);
+            if (cached != null && now - cached.created < CACHE_TTL) {
+                logger.debug("Serving cached history of Item {}, from {} to {}", device.getItemName(), start, end);
+                return cached.historyList;
+            }
+        }
+
+        HistoryList historyList = serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        synchronized (cache) {
+            cache.put(cacheKey, new CachedHistory(historyList, now));
+        }
+        return historyList;
     }
 
     private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
@@ -91,7 +131,7 @@ public class DeviceHistoryHandler {
         FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
                 .setEndDate(new Date(end));
 
-        List<HistoryItem> resultItems = new LinkedList<>();
+        HistoryList resultItems = new HistoryList();
         Iterable<HistoricItem> historicItems = persistence.query(criteria);
 
         Iterator<HistoricItem> iterator = historicItems.iterator();
@@ -102,18 +142,21 @@ public class DeviceHistoryHandler {
                 HistoricItem historicItem = iterator.next();
                 State state = historicItem.getState();
                 if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
+                    resultItems.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
                 }
             }
 
-            if (resultItems.isEmpty()) {
+            if (resultItems.size() == 0) {
                 logger.warn(
                         "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
             }
         }
 
-        return new HistoryList(resultItems);
+        HistoryList aggregated = resultItems.aggregate(start, end, MAX_VALUES);
+        if (aggregated != resultItems) {
+            logger.debug("Aggregated {} history values to {}", resultItems.size(), aggregated.size());
+        }
+        return aggregated;
     }
 
 }
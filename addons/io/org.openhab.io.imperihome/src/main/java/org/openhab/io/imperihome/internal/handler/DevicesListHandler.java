@@ -9,41 +9,106 @@
 package org.openhab.io.imperihome.internal.handler;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
-import org.openhab.io.imperihome.internal.model.device.DeviceList;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
+import org.openhab.io.imperihome.internal.util.DigestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. Keeps the serialized device list between requests and only serializes the devices again
+ * whose Item state changed since the previous request.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DevicesListHandler {
 
+    /**
+     * Serialized device list, in the form <code>{"devices":[...]}</code>, with its ETag.
+     */
+    public static class SerializedDeviceList {
+
+        private final String json;
+        private final String eTag;
+
+        private SerializedDeviceList(String json) {
+            this.json = json;
+            this.eTag = '"' + DigestUtil.sha1(json) + '"';
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+    }
+
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    // Serialized devices by device ID
+    private Map<String, String> deviceJson = new HashMap<>();
+    private long modificationCount = -1;
+    private SerializedDeviceList response;
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
-
+    public synchronized SerializedDeviceList handle(HttpServletRequest req) {
+        long currentModificationCount = deviceRegistry.getModificationCount();
         Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
+
+        boolean anyDirty = false;
         for (AbstractDevice device : devices) {
-            device.updateParams();
+            if (device.isDirty()) {
+                anyDirty = true;
+                break;
+            }
+        }
+        if (!anyDirty && response != null && modificationCount == currentModificationCount) {
+            return response;
+        }
+
+        Map<String, String> newDeviceJson = new HashMap<>();
+        StringBuilder json = new StringBuilder("{\"devices\":[");
+        int updated = 0;
+        for (AbstractDevice device : devices) {
+            String serialized = deviceJson.get(device.getId());
+            // Linked devices copy params of other devices, so they are updated whenever anything changed
+            if (serialized == null || device.isDirty() || (anyDirty && !device.getLinks().isEmpty())) {
+                device.clearDirty();
+                device.updateParams();
+                serialized = gson.toJson(device);
+                updated++;
+            }
+            newDeviceJson.put(device.getId(), serialized);
+
+            if (newDeviceJson.size() > 1) {
+                json.append(',');
+            }
+            json.append(serialized);
         }
+        json.append("]}");
 
-        response.setDevices(devices);
+        deviceJson = newDeviceJson;
+        modificationCount = currentModificationCount;
+        response = new SerializedDeviceList(json.toString());
 
-        logger.debug("Device list response: {}", response);
+        logger.debug("Device list response, {} of {} devices updated: {}", updated, devices.size(), response.getJson());
         return response;
     }
 
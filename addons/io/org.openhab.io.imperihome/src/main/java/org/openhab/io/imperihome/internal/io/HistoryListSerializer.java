@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.io;
+
+import java.io.IOException;
+
+import org.openhab.io.imperihome.internal.model.HistoryList;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Type adapter for {@link HistoryList}. Streams the values directly from and to JSON, without building an object per
+ * value.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryListSerializer extends TypeAdapter<HistoryList> {
+
+    @Override
+    public void write(JsonWriter out, HistoryList historyList) throws IOException {
+        if (historyList == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("values");
+        out.beginArray();
+        for (int i = 0; i < historyList.size(); i++) {
+            double value = historyList.getValue(i);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+
+            out.beginObject();
+            out.name("date").value(historyList.getDate(i));
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                out.name("value").value((long) value);
+            } else {
+                out.name("value").value(value);
+            }
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public HistoryList read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        HistoryList historyList = new HistoryList();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!"values".equals(in.nextName())) {
+                in.skipValue();
+                continue;
+            }
+
+            in.beginArray();
+            while (in.hasNext()) {
+                readValue(in, historyList);
+            }
+            in.endArray();
+        }
+        in.endObject();
+        return historyList;
+    }
+
+    private void readValue(JsonReader in, HistoryList historyList) throws IOException {
+        Long date = null;
+        Double value = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "date":
+                    date = in.nextLong();
+                    break;
+                case "value":
+                    value = in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (date == null || value == null) {
+            throw new JsonSyntaxException("History value without date or value at " + in.getPath());
+        }
+        historyList.add(date, value);
+    }
+
+}
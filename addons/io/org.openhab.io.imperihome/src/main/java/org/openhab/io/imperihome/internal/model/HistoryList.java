@@ -8,32 +8,85 @@
  */
 package org.openhab.io.imperihome.internal.model;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * History list data object.
+ * History list data object. Stores the values in primitive arrays, use
+ * {@link org.openhab.io.imperihome.internal.io.HistoryListSerializer} to stream it as JSON.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class HistoryList {
 
-    private List<HistoryItem> values;
+    private long[] dates;
+    private double[] values;
+    private int size;
 
     public HistoryList() {
-        this(new LinkedList<HistoryItem>());
+        this(64);
     }
 
-    public HistoryList(List<HistoryItem> resultItems) {
-        this.values = resultItems;
+    private HistoryList(int capacity) {
+        dates = new long[capacity];
+        values = new double[capacity];
     }
 
-    public List<HistoryItem> getValues() {
-        return values;
+    public void add(long date, double value) {
+        if (size == dates.length) {
+            dates = Arrays.copyOf(dates, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        dates[size] = date;
+        values[size] = value;
+        size++;
     }
 
-    public void setValues(List<HistoryItem> values) {
-        this.values = values;
+    public int size() {
+        return size;
+    }
+
+    public long getDate(int index) {
+        return dates[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Reduces the list to at most maxValues values, by splitting the range into equally sized buckets and averaging
+     * the dates and values within each bucket. Empty buckets are left out.
+     *
+     * @param start Start of the range in milliseconds.
+     * @param end End of the range in milliseconds.
+     * @param maxValues Maximum number of values.
+     * @return This list if it doesn't contain more than maxValues values, a new aggregated list otherwise.
+     */
+    public HistoryList aggregate(long start, long end, int maxValues) {
+        if (size <= maxValues || end <= start) {
+            return this;
+        }
+
+        double bucketSize = (double) (end - start) / maxValues;
+        double[] dateSums = new double[maxValues];
+        double[] valueSums = new double[maxValues];
+        int[] counts = new int[maxValues];
+        for (int i = 0; i < size; i++) {
+            int bucket = (int) ((dates[i] - start) / bucketSize);
+            bucket = Math.max(0, Math.min(maxValues - 1, bucket));
+            // Sum up offsets to the start, so the sums of the dates can't lose precision
+            dateSums[bucket] += dates[i] - start;
+            valueSums[bucket] += values[i];
+            counts[bucket]++;
+        }
+
+        HistoryList result = new HistoryList(maxValues);
+        for (int bucket = 0; bucket < maxValues; bucket++) {
+            if (counts[bucket] > 0) {
+                result.add(start + Math.round(dateSums[bucket] / counts[bucket]), valueSums[bucket] / counts[bucket]);
+            }
+        }
+        return result;
     }
 
 }
@@ -53,6 +53,9 @@ public abstract class AbstractDevice implements StateChangeListener {
     private transient DeviceRegistry deviceRegistry;
     private transient ActionRegistry actionRegistry;
 
+    // set when the Item state changed since the device was last serialized
+    private transient volatile boolean dirty = true;
+
     public AbstractDevice(DeviceType type, Item item) {
         this.type = type;
         this.item = item;
@@ -171,6 +174,20 @@ public abstract class AbstractDevice implements StateChangeListener {
         return actionRegistry;
     }
 
+    /**
+     * @return true if the Item state changed since the last call to {@link #clearDirty()}.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the device as up to date, just before it is serialized.
+     */
+    public void clearDirty() {
+        dirty = false;
+    }
+
     public Item getItem() {
         return item;
     }
@@ -219,6 +236,7 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
+        dirty = true;
     }
 
     @Override
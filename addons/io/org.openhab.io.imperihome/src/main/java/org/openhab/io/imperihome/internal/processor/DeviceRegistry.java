@@ -15,6 +15,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.imperihome.internal.model.Room;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
@@ -32,6 +33,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
 
     private final Map<String, AbstractDevice> devices;
     private Set<Room> rooms;
+    private final AtomicLong modificationCount = new AtomicLong();
 
     public DeviceRegistry() {
         devices = new ConcurrentHashMap<>();
@@ -49,6 +51,13 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         return new HashSet<>(rooms);
     }
 
+    /**
+     * @return Counter incremented whenever a device is added or removed.
+     */
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
     public boolean hasDevices() {
         return !devices.isEmpty();
     }
@@ -66,6 +75,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         }
 
         devices.put(device.getId(), device);
+        modificationCount.incrementAndGet();
         updateRooms();
 
         logger.debug("Device {} added, registry now contains {} total", device.getName(), devices.size());
@@ -74,6 +84,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     public AbstractDevice remove(String deviceId) {
         AbstractDevice removed = devices.remove(deviceId);
         if (removed != null) {
+            modificationCount.incrementAndGet();
             updateRooms();
             logger.debug("Device {} removed, registry now contains {} total", removed.getName(), devices.size());
         }
@@ -90,6 +101,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             device.destroy();
         }
         devices.clear();
+        modificationCount.incrementAndGet();
 
         if (rooms != null) {
             rooms.clear();
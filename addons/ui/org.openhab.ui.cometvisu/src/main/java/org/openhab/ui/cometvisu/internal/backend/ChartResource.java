@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -79,10 +80,28 @@ public class ChartResource implements RESTResource {
         // df.setPositivePrefix("+");
     }
 
+    // requests of the same series within this time share the data of the first request
+    static final long SERIES_CACHE_TIME = 10000;
+    static final int SERIES_CACHE_SIZE = 64;
+
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
     private ItemRegistry itemRegistry;
 
+    private final RrdDbCache rrdDbCache = new RrdDbCache();
+
+    private final Map<String, CachedSeries> seriesCache = new LinkedHashMap<String, CachedSeries>();
+
+    private static class CachedSeries {
+        final Object data;
+        final long created;
+
+        CachedSeries(Object data, long created) {
+            this.data = data;
+            this.created = created;
+        }
+    }
+
     @Context
     private UriInfo uriInfo;
 
@@ -108,6 +127,13 @@ public class ChartResource implements RESTResource {
         this.itemRegistry = null;
     }
 
+    protected void deactivate() {
+        synchronized (seriesCache) {
+            seriesCache.clear();
+        }
+        rrdDbCache.clear();
+    }
+
     @GET
     @Produces({ MediaType.APPLICATION_JSON })
     public Response getChartSeries(@Context HttpHeaders headers, @QueryParam("rrd") String itemName,
@@ -157,11 +183,19 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+            // start and end are used as requested, so relative times like 'now' share the data as well
+            String key = persistenceService.getId() + ":" + itemName + ":" + consilidationFunction + ":" + start + ":"
+                    + end + ":" + resolution;
+            Object data = getCachedSeries(key);
+            if (data == null) {
+                if (persistenceService.getId().equals("rrd4j")) {
+                    data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime,
+                            resolution);
+                } else {
+                    data = getPersistenceSeries(persistenceService, item, consilidationFunction, startTime, endTime,
+                            resolution);
+                }
+                putCachedSeries(key, data);
             }
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
@@ -171,9 +205,61 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * returns the series data cached for the key, or null if there is none or it is older than
+     * {@link #SERIES_CACHE_TIME} milliseconds
+     *
+     * @param key
+     * @return
+     */
+    private Object getCachedSeries(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (seriesCache) {
+            CachedSeries cached = seriesCache.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (now - cached.created >= SERIES_CACHE_TIME) {
+                seriesCache.remove(key);
+                return null;
+            }
+            logger.debug("series '{}' served from cache", key);
+            return cached.data;
+        }
+    }
+
+    private void putCachedSeries(String key, Object data) {
+        long now = System.currentTimeMillis();
+        synchronized (seriesCache) {
+            // the entries are in the order of their creation, expired ones are at the beginning
+            Iterator<CachedSeries> it = seriesCache.values().iterator();
+            while (it.hasNext()) {
+                CachedSeries cached = it.next();
+                if (now - cached.created < SERIES_CACHE_TIME && seriesCache.size() < SERIES_CACHE_SIZE) {
+                    break;
+                }
+                it.remove();
+            }
+            seriesCache.remove(key);
+            seriesCache.put(key, new CachedSeries(data, now));
+        }
+    }
+
+    /**
+     * returns the series of a generic persistence service, all values within one step of the
+     * resolution are consolidated like rrd4j does, so the client does not receive every single value
+     *
+     * @param persistenceService
+     * @param item
+     * @param consilidationFunction
+     * @param timeBegin
+     * @param timeEnd
+     * @param resolution step in seconds
+     * @return
+     */
+    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
+        ChartSeries series = new ChartSeries();
 
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
@@ -193,14 +279,14 @@ public class ChartResource implements RESTResource {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                series.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
-        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
-                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        series.consolidate(consilidationFunction, resolution * 1000);
+        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results, '{}' after consolidation",
+                persistenceService.getId(), filter.getItemName(), filter.getBeginDate(), filter.getEndDate(),
+                dataCounter, series.size());
+        return series;
     }
 
     /**
@@ -216,7 +302,7 @@ public class ChartResource implements RESTResource {
      */
     public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+        TreeMap<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -235,22 +321,23 @@ public class ChartResource implements RESTResource {
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, consilidationFunction, timeBegin, timeEnd,
+                    resolution);
         } catch (Exception e) {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, consilidationFunction, timeBegin, timeEnd,
+                    resolution);
         }
         return convertToRrd(data);
     }
 
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
+    private ArrayList<Object> convertToRrd(TreeMap<Long, ArrayList<String>> data) {
+        // data is already sorted by key
+        ArrayList<Object> rrd = new ArrayList<Object>(data.size());
+        for (Entry<Long, ArrayList<String>> row : data.entrySet()) {
             Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
+            entry[0] = row.getKey();
+            entry[1] = row.getValue();
             rrd.add(entry);
         }
         return rrd;
@@ -258,10 +345,15 @@ public class ChartResource implements RESTResource {
 
     private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
-        RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
+        RrdDb rrdDb = rrdDbCache.acquire(RRD_FOLDER + File.separator + itemName + ".rrd");
+        FetchData fetchData;
+        try {
+            FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
+                    Util.getTimestamp(timeEnd), resolution);
+            fetchData = fetchRequest.fetchData();
+        } finally {
+            rrdDbCache.release(rrdDb);
+        }
         // logger.info(fetchData.toString());
         long[] timestamps = fetchData.getTimestamps();
         double[][] values = fetchData.getValues();
@@ -282,7 +374,6 @@ public class ChartResource implements RESTResource {
                 vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
             }
         }
-        rrdDb.close();
 
         return data;
     }
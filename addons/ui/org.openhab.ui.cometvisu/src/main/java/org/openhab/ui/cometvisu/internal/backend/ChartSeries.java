@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.rrd4j.ConsolFun;
+
+/**
+ * a single chart series of a generic persistence service, the values are kept
+ * in primitive arrays and written as rrd series data [[timestamp,["value"]],...]
+ *
+ * like rrd4j the series can be consolidated to the requested resolution, all values
+ * of one step are combined by the consolidation function to one value at the end of the step
+ *
+ * @author agent
+ * @since 2.0.0
+ *
+ */
+class ChartSeries implements StreamingOutput {
+
+    private long[] timestamps = new long[64];
+    private double[] values = new double[64];
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * adds a value, values with the timestamp of the previous value replace it
+     *
+     * @param timestamp time in milliseconds
+     * @param value
+     */
+    void add(long timestamp, double value) {
+        if (size > 0) {
+            long last = timestamps[size - 1];
+            if (timestamp == last) {
+                values[size - 1] = value;
+                return;
+            } else if (timestamp < last) {
+                sorted = false;
+            }
+        }
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * combines all values within one step to a single value
+     *
+     * @param consolidationFunction function used to combine the values of one step
+     * @param step step size in milliseconds, nothing is consolidated if the step is not positive
+     */
+    void consolidate(ConsolFun consolidationFunction, long step) {
+        sort();
+        if (step <= 0 || size == 0) {
+            return;
+        }
+
+        int count = 0;
+        int from = 0;
+        while (from < size) {
+            long stepEnd = (Math.floorDiv(timestamps[from], step) + 1) * step;
+            int to = from + 1;
+            while (to < size && timestamps[to] < stepEnd) {
+                to++;
+            }
+            // the consolidated values never overtake the values still to read
+            timestamps[count] = stepEnd;
+            values[count] = consolidate(consolidationFunction, from, to);
+            count++;
+            from = to;
+        }
+        size = count;
+    }
+
+    private double consolidate(ConsolFun consolidationFunction, int from, int to) {
+        double result;
+        switch (consolidationFunction) {
+            case FIRST:
+                return values[from];
+            case LAST:
+                return values[to - 1];
+            case MIN:
+                result = values[from];
+                for (int i = from + 1; i < to; i++) {
+                    result = Math.min(result, values[i]);
+                }
+                return result;
+            case MAX:
+                result = values[from];
+                for (int i = from + 1; i < to; i++) {
+                    result = Math.max(result, values[i]);
+                }
+                return result;
+            case TOTAL:
+                result = 0;
+                for (int i = from; i < to; i++) {
+                    result += values[i];
+                }
+                return result;
+            case AVERAGE:
+            default:
+                result = 0;
+                for (int i = from; i < to; i++) {
+                    result += values[i];
+                }
+                return result / (to - from);
+        }
+    }
+
+    /**
+     * sorts the values by time in case the persistence service did not return them in ascending order
+     */
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // stable, so the last value of equal timestamps stays the last one
+        Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+
+        long[] sortedTimestamps = new long[timestamps.length];
+        double[] sortedValues = new double[values.length];
+        int count = 0;
+        for (int index : order) {
+            if (count > 0 && sortedTimestamps[count - 1] == timestamps[index]) {
+                count--;
+            }
+            sortedTimestamps[count] = timestamps[index];
+            sortedValues[count] = values[index];
+            count++;
+        }
+        timestamps = sortedTimestamps;
+        values = sortedValues;
+        size = count;
+        sorted = true;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        sort();
+        // DecimalFormat is not thread safe
+        DecimalFormat format = (DecimalFormat) ChartResource.df.clone();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write('[');
+            writer.write(Long.toString(timestamps[i]));
+            writer.write(",[\"");
+            writer.write(Double.isNaN(values[i]) ? "null" : format.format(values[i]));
+            writer.write("\"]]");
+        }
+        writer.write(']');
+        writer.flush();
+    }
+}
@@ -11,9 +11,12 @@ package org.openhab.ui.cometvisu.internal.backend;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -35,7 +38,7 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
+import org.glassfish.jersey.media.sse.OutboundEvent;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
@@ -46,7 +49,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * handles read request from the CometVisu client every request initializes a
- * SSE communication
+ * SSE communication. Each client gets the state changes of the items it
+ * requested only.
  *
  * @author Tobias Bräutigam
  * @since 2.0.0
@@ -55,16 +59,20 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
-
     private final ExecutorService executorService;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    /** the subscribed CometVisu item names with their state type, by openHAB item name */
+    private Map<String, Map<String, Class<? extends State>>> items = new HashMap<String, Map<String, Class<? extends State>>>();
+
+    /** the clients subscribed to a CometVisu item name */
+    private Map<String, Set<EventOutput>> subscribers = new HashMap<String, Set<EventOutput>>();
+
+    /** the CometVisu item names subscribed by a client */
+    private Map<EventOutput, Set<String>> clients = new HashMap<EventOutput, Set<String>>();
 
     @Context
     private UriInfo uriInfo;
@@ -100,10 +108,12 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Subscribes the connecting client to the state changes of the requested
+     * items.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the CometVisu item names, an item name can be prefixed with
+     *            the type of the state, e.g. 'number:Light'
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -115,67 +125,100 @@ public class ReadResource implements EventBroadcaster, RESTResource {
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
 
-        this.itemNames = itemNames;
+        List<StateBean> states = new ArrayList<StateBean>();
+        synchronized (this) {
+            Set<String> clientItems = new HashSet<String>(itemNames);
+            clients.put(eventOutput, clientItems);
 
-        broadcaster.add(eventOutput);
+            for (String cvItemName : clientItems) {
+                String ohItemName = getItemName(cvItemName);
+                Class<? extends State> stateClass = getStateClass(cvItemName);
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
-        // send the current states of all items to the client
-        if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
-                try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
+                Set<EventOutput> itemSubscribers = subscribers.get(cvItemName);
+                if (itemSubscribers == null) {
+                    itemSubscribers = new HashSet<EventOutput>();
+                    subscribers.put(cvItemName, itemSubscribers);
+                }
+                itemSubscribers.add(eventOutput);
+
+                if (!items.containsKey(ohItemName)) {
+                    items.put(ohItemName, new HashMap<String, Class<? extends State>>());
+                }
+                items.get(ohItemName).put(cvItemName, stateClass);
+
+                // listen to state changes of the requested item and get its current state
+                if (this.itemRegistry != null) {
+                    try {
+                        Item item = this.itemRegistry.getItem(ohItemName);
+                        if (item instanceof GenericItem) {
+                            ((GenericItem) item).addStateChangeListener(stateEventListener);
+                        }
+                        StateBean itemState = new StateBean();
+                        itemState.name = cvItemName;
+
+                        if (stateClass != null) {
+                            itemState.state = item.getStateAs(stateClass).toString();
+                            logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
                         } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
+                            itemState.state = item.getState().toString();
                         }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
+                        states.add(itemState);
+                    } catch (ItemNotFoundException e) {
+                        logger.error("{}", e.getLocalizedMessage());
                     }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
-                    }
-                    states.add(itemState);
-                } catch (ItemNotFoundException e) {
-                    logger.error("{}", e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
         }
-        // listen to state changes of the requested items
-        registerItems();
+
+        // send the current states of all items to the client
+        if (this.itemRegistry != null) {
+            logger.debug("initially sending {}/{} item states", states.size(), itemNames.size());
+            write(eventOutput, SseUtil.buildEvent(states));
+        }
 
         return eventOutput;
     }
 
+    /**
+     * returns the openHAB item name of a CometVisu item name
+     */
+    private String getItemName(String cvItemName) {
+        String[] parts = cvItemName.split(":");
+        return parts.length == 2 ? parts[1] : cvItemName;
+    }
+
+    /**
+     * returns the state type requested by a CometVisu item name or null, if
+     * the item name has no type prefix
+     */
+    private Class<? extends State> getStateClass(String cvItemName) {
+        String[] parts = cvItemName.split(":");
+        if (parts.length == 2) {
+            String classPrefix = parts[0].toLowerCase();
+            if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                return Config.itemTypeMapper.get(classPrefix);
+            }
+            logger.debug("no type found for '{}'", classPrefix);
+        }
+        return null;
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
-    public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
+    public synchronized void registerItems() {
+        if (itemRegistry == null) {
+            return;
+        }
+        for (String ohItemName : items.keySet()) {
+            try {
+                Item item = itemRegistry.getItem(ohItemName);
+                if (item instanceof GenericItem) {
+                    ((GenericItem) item).addStateChangeListener(stateEventListener);
+                }
+            } catch (ItemNotFoundException e) {
+                logger.debug("{}", e.getLocalizedMessage());
             }
         }
     }
@@ -188,8 +231,8 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      *            - the new item, that should be listened to
      */
     @Override
-    public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+    public synchronized void registerItem(Item item) {
+        if (item == null || !items.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -198,45 +241,135 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
+     * stops listening to state changes of the given item, if it is part of the
      * requested items
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the removed item, that should not be listened to anymore
      */
     @Override
-    public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+    public synchronized void unregisterItem(Item item) {
+        if (item == null || !items.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Broadcasts an event described by the given parameters to the clients,
+     * which subscribed to the item of the event. The event is serialized once
+     * for all of them.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
      *            - bean that can be converted to a JSON object.
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
+        final List<EventOutput> eventOutputs = getSubscribers(eventObject);
+        if (eventOutputs.isEmpty()) {
+            return;
+        }
         executorService.execute(new Runnable() {
 
             @Override
             public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
+                OutboundEvent event = SseUtil.buildEvent(eventObject);
+                for (EventOutput eventOutput : eventOutputs) {
+                    write(eventOutput, event);
+                }
             }
         });
     }
 
+    /**
+     * returns the clients, which subscribed to the item of a {@link StateBean},
+     * other events are sent to all clients
+     */
+    private synchronized List<EventOutput> getSubscribers(Object eventObject) {
+        if (eventObject instanceof StateBean) {
+            Set<EventOutput> itemSubscribers = subscribers.get(((StateBean) eventObject).name);
+            if (itemSubscribers == null) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<EventOutput>(itemSubscribers);
+        }
+        return new ArrayList<EventOutput>(clients.keySet());
+    }
+
+    /**
+     * writes the event to the client, a client which can't be written to
+     * anymore is removed
+     */
+    private void write(EventOutput eventOutput, OutboundEvent event) {
+        if (!eventOutput.isClosed()) {
+            try {
+                eventOutput.write(event);
+                return;
+            } catch (IOException e) {
+                logger.debug("client disconnected: {}", e.getMessage());
+            }
+        }
+        removeClient(eventOutput);
+    }
+
+    /**
+     * removes the subscriptions of a client and stops listening to items,
+     * which are not subscribed by any other client
+     */
+    private synchronized void removeClient(EventOutput eventOutput) {
+        Set<String> clientItems = clients.remove(eventOutput);
+        if (clientItems == null) {
+            return;
+        }
+        for (String cvItemName : clientItems) {
+            Set<EventOutput> itemSubscribers = subscribers.get(cvItemName);
+            if (itemSubscribers == null) {
+                continue;
+            }
+            itemSubscribers.remove(eventOutput);
+            if (itemSubscribers.isEmpty()) {
+                subscribers.remove(cvItemName);
+                String ohItemName = getItemName(cvItemName);
+                Map<String, Class<? extends State>> cvItems = items.get(ohItemName);
+                if (cvItems != null) {
+                    cvItems.remove(cvItemName);
+                    if (cvItems.isEmpty()) {
+                        items.remove(ohItemName);
+                        unregisterItem(ohItemName);
+                    }
+                }
+            }
+        }
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        logger.debug("removed client, {} clients remaining", clients.size());
+    }
+
+    private void unregisterItem(String ohItemName) {
+        if (itemRegistry == null) {
+            return;
+        }
+        try {
+            Item item = itemRegistry.getItem(ohItemName);
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).removeStateChangeListener(stateEventListener);
+            }
+        } catch (ItemNotFoundException e) {
+            // item is already gone
+        }
+    }
+
     @Override
-    public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+    public synchronized Map<String, Class<? extends State>> getClientItems(Item item) {
+        Map<String, Class<? extends State>> cvItems = items.get(item.getName());
+        if (cvItems == null) {
+            return null;
+        }
+        return new HashMap<String, Class<? extends State>>(cvItems);
     }
 }
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.rrd4j.core.RrdBackend;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdRandomAccessFileBackend;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * keeps read-only {@link RrdDb} handles open between chart requests, so the rrd files
+ * of a chart are not opened again for every request and every group member
+ *
+ * the rrd files are written by the rrd4j persistence service at the same time, therefore
+ * the handles are opened without caching and always read the current content of the file
+ *
+ * at most {@link #MAX_HANDLES} handles are kept, handles not used for {@link #MAX_IDLE_TIME}
+ * milliseconds are closed, also when no further chart is requested
+ *
+ * @author agent
+ * @since 2.0.0
+ *
+ */
+class RrdDbCache {
+    private final Logger logger = LoggerFactory.getLogger(RrdDbCache.class);
+
+    static final int MAX_HANDLES = 32;
+    static final long MAX_IDLE_TIME = 60000;
+
+    private static final RrdRandomAccessFileBackendFactory READ_ONLY_FACTORY = new RrdRandomAccessFileBackendFactory() {
+        @Override
+        protected RrdBackend open(String path, boolean readOnly) throws IOException {
+            return new RrdRandomAccessFileBackend(path, true) {
+                @Override
+                protected boolean isCachingAllowed() {
+                    return false;
+                }
+            };
+        }
+    };
+
+    private static class Handle {
+        final RrdDb rrdDb;
+        int users;
+        long lastUsed;
+
+        Handle(RrdDb rrdDb) {
+            this.rrdDb = rrdDb;
+        }
+    }
+
+    // access ordered, the least recently used handle comes first
+    private final Map<String, Handle> handles = new LinkedHashMap<String, Handle>(16, 0.75f, true);
+
+    // closes idle handles, only runs while handles are open
+    private ScheduledExecutorService evictionScheduler;
+    private boolean evictionScheduled;
+
+    /**
+     * returns an open handle of the rrd file, every handle must be given back with {@link #release(RrdDb)}
+     *
+     * @param path path of the rrd file
+     * @return
+     * @throws IOException if the file does not exist or can not be read
+     */
+    RrdDb acquire(String path) throws IOException {
+        synchronized (handles) {
+            Handle handle = handles.get(path);
+            if (handle != null && !handle.rrdDb.isClosed()) {
+                handle.users++;
+                return handle.rrdDb;
+            }
+        }
+
+        // opening may take a while, do it without holding the lock
+        RrdDb rrdDb = new RrdDb(path, true, READ_ONLY_FACTORY);
+
+        synchronized (handles) {
+            Handle handle = handles.get(path);
+            if (handle != null && !handle.rrdDb.isClosed()) {
+                // opened by another request meanwhile
+                close(rrdDb);
+            } else {
+                handle = new Handle(rrdDb);
+                handles.put(path, handle);
+            }
+            handle.users++;
+            evict(System.currentTimeMillis());
+            return handle.rrdDb;
+        }
+    }
+
+    /**
+     * gives back a handle returned by {@link #acquire(String)}
+     *
+     * @param rrdDb
+     */
+    void release(RrdDb rrdDb) {
+        long now = System.currentTimeMillis();
+        synchronized (handles) {
+            Handle handle = handles.get(rrdDb.getPath());
+            if (handle != null && handle.rrdDb == rrdDb) {
+                handle.users--;
+                handle.lastUsed = now;
+            } else {
+                // evicted while in use
+                close(rrdDb);
+            }
+            evict(now);
+            scheduleEviction();
+        }
+    }
+
+    /**
+     * closes all handles which are not in use
+     */
+    void clear() {
+        synchronized (handles) {
+            if (evictionScheduler != null) {
+                evictionScheduler.shutdownNow();
+                evictionScheduler = null;
+                evictionScheduled = false;
+            }
+            Iterator<Handle> it = handles.values().iterator();
+            while (it.hasNext()) {
+                Handle handle = it.next();
+                it.remove();
+                if (handle.users == 0) {
+                    close(handle.rrdDb);
+                }
+            }
+        }
+    }
+
+    /**
+     * runs {@link #evict(long)} once the least recently used handle has been idle long enough,
+     * as long as handles are open
+     */
+    private void scheduleEviction() {
+        if (evictionScheduled || handles.isEmpty()) {
+            return;
+        }
+        if (evictionScheduler == null) {
+            evictionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CometVisu rrd handle eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        evictionScheduled = true;
+        evictionScheduler.schedule(() -> {
+            synchronized (handles) {
+                evictionScheduled = false;
+                evict(System.currentTimeMillis());
+                scheduleEviction();
+            }
+        }, MAX_IDLE_TIME, TimeUnit.MILLISECONDS);
+    }
+
+    private void evict(long now) {
+        int size = handles.size();
+        Iterator<Handle> it = handles.values().iterator();
+        while (it.hasNext()) {
+            Handle handle = it.next();
+            if (handle.users > 0) {
+                continue;
+            }
+            if (size > MAX_HANDLES || now - handle.lastUsed >= MAX_IDLE_TIME) {
+                it.remove();
+                size--;
+                close(handle.rrdDb);
+            }
+        }
+    }
+
+    private void close(RrdDb rrdDb) {
+        try {
+            rrdDb.close();
+        } catch (IOException e) {
+            logger.debug("error closing rrd file '{}': {}", rrdDb.getPath(), e.getMessage());
+        }
+    }
+}
@@ -15,9 +15,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -72,6 +75,7 @@ import org.openhab.ui.cometvisu.internal.config.VisuConfig;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.DataBean;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.ItemBean;
 import org.openhab.ui.cometvisu.internal.rss.beans.Feed;
+import org.openhab.ui.cometvisu.internal.servlet.CompressedFileCache.CompressedFile;
 import org.openhab.ui.cometvisu.internal.util.ClientInstaller;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.slf4j.Logger;
@@ -117,6 +121,8 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private final CompressedFileCache compressedFiles = new CompressedFileCache();
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -701,6 +707,7 @@ public class CometVisuServlet extends HttpServlet {
         // content disposition.
         String contentType = getServletContext().getMimeType(fileName);
         boolean acceptsGzip = false;
+        boolean acceptsBrotli = false;
         String disposition = "inline";
 
         // If content type is unknown, then set the default value.
@@ -718,7 +725,9 @@ public class CometVisuServlet extends HttpServlet {
         if (contentType.startsWith("text")) {
             String acceptEncoding = request.getHeader("Accept-Encoding");
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
+            acceptsBrotli = acceptEncoding != null && accepts(acceptEncoding, "br");
             contentType += ";charset=UTF-8";
+            response.setHeader("Vary", "Accept-Encoding");
         }
 
         // Else, expect for images, determine content disposition. If content
@@ -741,12 +750,12 @@ public class CometVisuServlet extends HttpServlet {
         // ------------------------------------------------
 
         // Prepare streams.
-        RandomAccessFile input = null;
+        FileChannel input = null;
         OutputStream output = null;
 
         try {
             // Open streams.
-            input = new RandomAccessFile(file, "r");
+            input = FileChannel.open(file.toPath(), StandardOpenOption.READ);
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -757,20 +766,30 @@ public class CometVisuServlet extends HttpServlet {
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (content) {
-                    if (acceptsGzip) {
-                        // The browser accepts GZIP, so GZIP the content.
-                        response.setHeader("Content-Encoding", "gzip");
-                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                    // The browser accepts GZIP, so use the compressed variant
+                    // of the file, it is only compressed once.
+                    CompressedFile compressed = acceptsGzip ? compressedFiles.get(file, eTag, acceptsBrotli) : null;
+                    if (compressed != null) {
+                        response.setHeader("Content-Encoding", compressed.getEncoding());
+                        response.setHeader("Content-Length", String.valueOf(compressed.getLength()));
+                        compressed.writeTo(output, Channels.newChannel(output));
                     } else {
-                        // Content length is not directly predictable in case of
-                        // GZIP.
-                        // So only add it if there is no means of GZIP, else
-                        // browser will hang.
-                        response.setHeader("Content-Length", String.valueOf(r.length));
-                    }
+                        if (acceptsGzip) {
+                            // The file is too large to be kept compressed, so
+                            // GZIP the content.
+                            response.setHeader("Content-Encoding", "gzip");
+                            output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        } else {
+                            // Content length is not directly predictable in case
+                            // of GZIP.
+                            // So only add it if there is no means of GZIP, else
+                            // browser will hang.
+                            response.setHeader("Content-Length", String.valueOf(r.length));
+                        }
 
-                    // Copy full range.
-                    copy(input, output, r.start, r.length);
+                        // Copy full range.
+                        copy(input, Channels.newChannel(output), r.start, r.length);
+                    }
                 }
 
             } else if (ranges.size() == 1) {
@@ -784,7 +803,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
-                    copy(input, output, r.start, r.length);
+                    copy(input, Channels.newChannel(output), r.start, r.length);
                 }
 
             } else {
@@ -797,6 +816,7 @@ public class CometVisuServlet extends HttpServlet {
                     // Cast back to ServletOutputStream to get the easy println
                     // methods.
                     ServletOutputStream sos = (ServletOutputStream) output;
+                    WritableByteChannel channel = Channels.newChannel(output);
 
                     // Copy multi part range.
                     for (Range r : ranges) {
@@ -808,7 +828,7 @@ public class CometVisuServlet extends HttpServlet {
                         sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 
                         // Copy single part range of multi part range.
-                        copy(input, output, r.start, r.length);
+                        copy(input, channel, r.start, r.length);
                     }
 
                     // End with multipart boundary.
@@ -1119,7 +1139,9 @@ public class CometVisuServlet extends HttpServlet {
     }
 
     /**
-     * Copy the given byte range of the given input to the given output.
+     * Copy the given byte range of the given input to the given output. The
+     * bytes are transferred by the file channel, without copying them through
+     * a buffer of our own.
      *
      * @param input
      *            The input to copy the given range to the given output for.
@@ -1132,28 +1154,16 @@ public class CometVisuServlet extends HttpServlet {
      * @throws IOException
      *             If something fails at I/O level.
      */
-    private static void copy(RandomAccessFile input, OutputStream output, long start, long length) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-
-        if (input.length() == length) {
-            // Write full range.
-            while ((read = input.read(buffer)) > 0) {
-                output.write(buffer, 0, read);
-            }
-        } else {
-            // Write partial range.
-            input.seek(start);
-            long toRead = length;
-
-            while ((read = input.read(buffer)) > 0) {
-                if ((toRead -= read) > 0) {
-                    output.write(buffer, 0, read);
-                } else {
-                    output.write(buffer, 0, (int) toRead + read);
-                    break;
-                }
+    static void copy(FileChannel input, WritableByteChannel output, long start, long length) throws IOException {
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long transferred = input.transferTo(position, end - position, output);
+            if (transferred <= 0) {
+                // The file was truncated meanwhile.
+                break;
             }
+            position += transferred;
         }
     }
 
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides compressed variants of static files, so the same files are not compressed again for every request.
+ *
+ * Precompressed files next to the requested file (e.g. script.js.br or script.js.gz) are used as long as they are not
+ * older than the file. Otherwise the file is gzipped once and kept in memory until it is modified, the ETag of the file
+ * identifies the cached variant.
+ *
+ * @author agent
+ */
+class CompressedFileCache {
+    private final Logger logger = LoggerFactory.getLogger(CompressedFileCache.class);
+
+    static final String GZIP = "gzip";
+    static final String BROTLI = "br";
+
+    /** maximum size of all compressed variants kept in memory */
+    private static final long MAX_CACHE_SIZE = 16 * 1024 * 1024;
+
+    /** larger files are not compressed in memory */
+    private static final long MAX_FILE_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * A compressed variant of a file, either a precompressed file or the compressed content kept in memory.
+     */
+    static class CompressedFile {
+        private final String encoding;
+        private final String eTag;
+        private final File file;
+        private final byte[] data;
+
+        private CompressedFile(String encoding, String eTag, File file, byte[] data) {
+            this.encoding = encoding;
+            this.eTag = eTag;
+            this.file = file;
+            this.data = data;
+        }
+
+        String getEncoding() {
+            return encoding;
+        }
+
+        long getLength() {
+            return data != null ? data.length : file.length();
+        }
+
+        void writeTo(OutputStream output, WritableByteChannel channel) throws IOException {
+            if (data != null) {
+                output.write(data);
+            } else {
+                try (FileChannel input = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    CometVisuServlet.copy(input, channel, 0, input.size());
+                }
+            }
+        }
+    }
+
+    // access ordered, the least recently used variant comes first
+    private final Map<String, CompressedFile> cache = new LinkedHashMap<String, CompressedFile>(16, 0.75f, true);
+    private long cacheSize;
+
+    /**
+     * Returns the compressed variant of the file or null if there is none and the file is too large to be compressed
+     * in memory.
+     *
+     * @param file the requested file
+     * @param eTag the ETag of the requested file, it changes whenever the file is modified
+     * @param acceptsBrotli true if the client accepts brotli encoded content
+     * @return the compressed variant or null
+     * @throws IOException if the file could not be read
+     */
+    CompressedFile get(File file, String eTag, boolean acceptsBrotli) throws IOException {
+        if (acceptsBrotli) {
+            CompressedFile precompressed = getPrecompressed(file, eTag, BROTLI, ".br");
+            if (precompressed != null) {
+                return precompressed;
+            }
+        }
+        CompressedFile precompressed = getPrecompressed(file, eTag, GZIP, ".gz");
+        if (precompressed != null) {
+            return precompressed;
+        }
+
+        String key = file.getPath();
+        synchronized (cache) {
+            CompressedFile compressed = cache.get(key);
+            if (compressed != null && compressed.eTag.equals(eTag)) {
+                return compressed;
+            }
+        }
+
+        if (file.length() > MAX_FILE_SIZE) {
+            return null;
+        }
+        // compress without holding the lock, another request may compress the same file meanwhile
+        CompressedFile compressed = new CompressedFile(GZIP, eTag, null, compress(file));
+        logger.debug("Compressed '{}' from {} to {} bytes", file, file.length(), compressed.getLength());
+
+        synchronized (cache) {
+            CompressedFile previous = cache.put(key, compressed);
+            if (previous != null) {
+                cacheSize -= previous.getLength();
+            }
+            cacheSize += compressed.getLength();
+
+            Iterator<CompressedFile> it = cache.values().iterator();
+            while (cacheSize > MAX_CACHE_SIZE && it.hasNext()) {
+                CompressedFile eldest = it.next();
+                if (eldest != compressed) {
+                    it.remove();
+                    cacheSize -= eldest.getLength();
+                }
+            }
+        }
+        return compressed;
+    }
+
+    private CompressedFile getPrecompressed(File file, String eTag, String encoding, String extension) {
+        File precompressed = new File(file.getPath() + extension);
+        if (precompressed.isFile() && precompressed.lastModified() >= file.lastModified()) {
+            return new CompressedFile(encoding, eTag, precompressed, null);
+        }
+        return null;
+    }
+
+    private static byte[] compress(File file) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) (file.length() / 4));
+        try (InputStream input = new FileInputStream(file);
+                OutputStream output = new GZIPOutputStream(compressed) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        return compressed.toByteArray();
+    }
+}